@@ -1,7 +1,25 @@
 package chess;
 
+import chess.engine.LazySmpSearch;
+import chess.engine.NnueEvaluator;
+import chess.engine.NnueNetwork;
+import chess.engine.SearchLimits;
+import chess.engine.SearchOptions;
+import chess.engine.Tournament;
+import chess.engine.TranspositionTable;
+import chess.engine.UciEngine;
+import chess.gameplay.MatchRegistry;
 import chess.gameplay.MatchWrapper;
+import chess.gameplay.Perft;
+import chess.gameplay.world.Position;
+import chess.net.GameLoadClient;
+import chess.net.GameServer;
+import chess.net.SpectatorBroadcaster;
+import chess.storage.Database;
 import chess.ui.GameWindow;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 /**
  * Entry point of the Chess game.
@@ -13,16 +31,155 @@ public class Main {
      */
     private static MatchWrapper matchWrapper;
     
+    /**
+     * Hidden layer size of the random networks made for benchmarking.
+     */
+    private static final int DEFAULT_HIDDEN_SIZE = 256;
+    
     public static void main(String[] args) { 
+        if (args.length > 0) {
+            runCommand(args);
+            return;
+        }
+        
         getMatchWrapper();
         new GameWindow().setVisible(true);
     }
     
-    public static MatchWrapper getMatchWrapper() {
+    /**
+     * Retrieves the bridge, creating it on the first call from any thread.
+     * @return Bridge between the business and the presentation layers.
+     */
+    public static synchronized MatchWrapper getMatchWrapper() {
         if (matchWrapper == null) {
             matchWrapper = new MatchWrapper();
         }
         
         return matchWrapper;
     }
+    
+    /**
+     * Runs a command line tool instead of the game:
+     *   --perft depth [--parallel] [fen]
+     *   --smp depth threads [--no-pvs|--no-null|--no-lmr|--no-aspiration]... [--weights file] [fen]
+     *   --nnue-bench [--weights file] [fen]
+     *   --nnue-random file [hidden size]
+     *   --uci
+     *   --tournament games nodes [--no-pvs|--no-null|--no-lmr|--no-aspiration]... [--weights file]
+     *   --server port
+     *   --load-client host port connections seconds
+     *   --spectator-bench spectators seconds
+     * Without a weights file, the benchmark uses a random network. The
+     * tournament plays a challenger with the passed options against the
+     * default engine, searching the passed nodes per move.
+     * @param args Arguments passed to the program.
+     */
+    private static void runCommand(String[] args) {
+        boolean parallel = false;
+        SearchOptions options = new SearchOptions();
+        StringBuilder fen = new StringBuilder();
+        
+        for (int index = 1; index < args.length; index++) {
+            if (args[index].equals("--parallel")) {
+                parallel = true;
+            } else if (args[index].startsWith("--no-")) {
+                options.disable(args[index].substring("--no-".length()));
+            } else if (args[index].equals("--weights") && (index + 1 < args.length)) {
+                index++;
+                options.setNetwork(loadNetwork(args[index]));
+            } else if (args[0].equals("--nnue-random")) {
+                break;
+            } else if (!((index == 1) && args[0].equals("--perft"))
+                    && !((index <= 2) && (args[0].equals("--smp") || args[0].equals("--tournament")))) {
+                fen.append(args[index]).append(' ');
+            }
+        }
+        
+        switch (args[0]) {
+            case "--perft":
+                Position position = Position.fromFen(
+                        (fen.length() > 0) ? fen.toString() : Position.START_FEN);
+                Perft.report(position, Integer.parseInt(args[1]), parallel);
+                break;
+            case "--smp":
+                LazySmpSearch.report(Position.fromFen((fen.length() > 0) ? fen.toString() : Position.START_FEN),
+                        Integer.parseInt(args[1]), Integer.parseInt(args[2]), TranspositionTable.DEFAULT_MEGABYTES,
+                        options);
+                break;
+            case "--nnue-bench":
+                NnueEvaluator.benchmark((options.getNetwork() != null) ? options.getNetwork()
+                                : NnueNetwork.random(DEFAULT_HIDDEN_SIZE, 1),
+                        Position.fromFen((fen.length() > 0) ? fen.toString() : Position.START_FEN), 5_000_000);
+                break;
+            case "--nnue-random":
+                try {
+                    NnueNetwork.random((args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_HIDDEN_SIZE, 1)
+                            .save(Paths.get(args[1]));
+                } catch (IOException ex) {
+                    System.err.println("Could not write " + args[1] + ": " + ex.getMessage());
+                    System.exit(1);
+                }
+                break;
+            case "--tournament":
+                SearchLimits limits = new SearchLimits();
+                limits.setMaxNodes(Long.parseLong(args[2]));
+                String challengerName = "CPU challenger";
+                if (args.length > 3) {
+                    challengerName += " " + String.join(" ", Arrays.copyOfRange(args, 3, args.length));
+                }
+                Database database = new Database();
+                new Tournament(new SearchOptions(), "CPU baseline", options, challengerName, limits, database)
+                        .run(Integer.parseInt(args[1]), Runtime.getRuntime().availableProcessors());
+                database.close();
+                break;
+            case "--server":
+                try {
+                    GameServer server = new GameServer(new MatchRegistry(getMatchWrapper()), Integer.parseInt(args[1]));
+                    System.out.println("Listening on port " + server.getPort());
+                    server.run();
+                } catch (IOException ex) {
+                    System.err.println("Could not serve: " + ex.getMessage());
+                    System.exit(1);
+                }
+                break;
+            case "--load-client":
+                try {
+                    new GameLoadClient(args[1], Integer.parseInt(args[2]))
+                            .run(Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+                } catch (IOException ex) {
+                    System.err.println("Could not connect: " + ex.getMessage());
+                    System.exit(1);
+                }
+                break;
+            case "--spectator-bench":
+                SpectatorBroadcaster.benchmark(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+                break;
+            case "--uci":
+                try {
+                    new UciEngine(System.in, System.out).run();
+                } catch (IOException ex) {
+                    System.err.println("Could not read the commands: " + ex.getMessage());
+                    System.exit(1);
+                }
+                break;
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(1);
+        }
+    }
+    
+    /**
+     * Loads a NNUE weights file, exiting when it cannot be read.
+     * @param path Path of the weights file.
+     * @return Network stored on the file.
+     */
+    private static NnueNetwork loadNetwork(String path) {
+        try {
+            return NnueNetwork.load(Paths.get(path));
+        } catch (IOException ex) {
+            System.err.println("Could not load " + path + ": " + ex.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
 }
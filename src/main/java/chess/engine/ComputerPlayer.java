@@ -0,0 +1,66 @@
+package chess.engine;
+
+import chess.gameplay.world.Position;
+
+// Player whose moves are chosen by the search engine.
+public class ComputerPlayer {
+    // Name which makes a player of the game be played by the computer.
+    public static final String NAME = "CPU";
+
+    // Engine looking for the moves, on a single thread unless configured.
+    private final LazySmpSearch search = new LazySmpSearch(new TranspositionTable(), 1);
+
+    public LazySmpSearch getSearch() {
+        return search;
+    }
+
+    // Limits applied to the search of every move.
+    private final SearchLimits limits;
+
+    public SearchLimits getLimits() {
+        return limits;
+    }
+
+    public ComputerPlayer(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    //
+    // Searches the best move of the side to move in the position.
+    //
+    public SearchResult think(Position position) {
+        return search.search(position, limits);
+    }
+
+    //
+    // Searches the position within other limits than the usual ones, such
+    // as those made by createPonderLimits.
+    //
+    public SearchResult think(Position position, SearchLimits searchLimits) {
+        return search.search(position, searchLimits);
+    }
+
+    //
+    // Creates limits for searching on the opponent's time: the usual ones,
+    // which only apply once pondering is cleared on them.
+    //
+    public SearchLimits createPonderLimits() {
+        SearchLimits ponderLimits = new SearchLimits(limits);
+        ponderLimits.setPondering(true);
+        return ponderLimits;
+    }
+
+    //
+    // Aborts the search in progress, which then returns its last result.
+    //
+    public void stop() {
+        search.stop();
+    }
+
+    //
+    // Indicates whether or not the name asks for a computer player.
+    //
+    public static boolean isComputerName(String name) {
+        return NAME.equalsIgnoreCase(name.trim());
+    }
+}
@@ -0,0 +1,59 @@
+package chess.engine;
+
+import chess.gameplay.world.PieceSquareTables;
+import chess.gameplay.world.Position;
+
+// Static evaluation of a position: material and piece placement, read from
+// the piece-square values the position keeps up to date as moves are made
+// and unmade, plus the pawn structure, cached on a pawn hash table. Both
+// are blended between their middlegame and endgame weights by the phase of
+// the game. Evaluating is thus independent of the pieces left.
+public class Evaluator {
+    // Cache of the pawn structure scores.
+    private final PawnHashTable pawnHashTable = new PawnHashTable();
+
+    public PawnHashTable getPawnHashTable() {
+        return pawnHashTable;
+    }
+
+    //
+    // Prepares the evaluation of the positions reached from the root. This
+    // and the hooks below are called by the search around every change of
+    // the position, so that evaluators keeping state of their own can
+    // update it incrementally; this one reads it all from the position.
+    //
+    public void reset(Position root) {
+    }
+
+    //
+    // Called right before the move is made on the position.
+    //
+    public void makeMove(Position position, int move) {
+    }
+
+    //
+    // Called right after the last move made has been unmade.
+    //
+    public void unmakeMove() {
+    }
+
+    public void makeNullMove() {
+    }
+
+    public void unmakeNullMove() {
+    }
+
+    //
+    // Scores the position, in centipawns, from the point of view of the
+    // side to move.
+    //
+    public int evaluate(Position position) {
+        int packed = position.getPieceSquareValue(Position.WHITE) - position.getPieceSquareValue(Position.BLACK)
+                + pawnHashTable.probe(position) + PawnStructure.evaluateShields(position);
+        int phase = Math.min(position.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (PieceSquareTables.middlegameOf(packed) * phase
+                + PieceSquareTables.endgameOf(packed) * (PieceSquareTables.MAX_PHASE - phase))
+                / PieceSquareTables.MAX_PHASE;
+        return (position.getSideToMove() == Position.WHITE) ? score : -score;
+    }
+}
@@ -0,0 +1,259 @@
+package chess.engine;
+
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+// Parallel search following the Lazy SMP scheme: every thread searches the
+// same root on its own position, sharing nothing but the transposition
+// table. Helpers start one ply deeper on every other thread, so that they
+// fill the table with results the main thread will find on its next
+// iterations. The result is the one of the main thread, which also decides
+// when the search ends.
+public class LazySmpSearch {
+    // Milliseconds between two attempts of stopping a helper.
+    private static final long HELPER_STOP_POLL_MILLIS = 5;
+
+    // Table shared by every thread.
+    private final TranspositionTable transpositionTable;
+
+    // Selective techniques used by every thread.
+    private final SearchOptions options;
+
+    // Searches of the threads; the first one runs on the calling thread.
+    private Search[] searches;
+
+    // Threads running the helper searches.
+    private ExecutorService helperPool;
+
+    // Receives the iterations of the main thread, or null.
+    private Consumer<SearchResult> iterationListener;
+
+    // Statistics of the last search.
+    private long[] threadNodes = new long[0];
+    private long elapsedMillis;
+
+    public LazySmpSearch(TranspositionTable transpositionTable, int threads) {
+        this(transpositionTable, threads, new SearchOptions());
+    }
+
+    public LazySmpSearch(TranspositionTable transpositionTable, int threads, SearchOptions options) {
+        this.transpositionTable = transpositionTable;
+        this.options = options;
+        setThreads(threads);
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    //
+    // Changes the amount of threads searching, including the calling one.
+    //
+    public synchronized void setThreads(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("'value' holds an invalid value: " + value);
+        }
+        if ((searches != null) && (searches.length == value)) {
+            return;
+        }
+
+        shutdown();
+        searches = new Search[value];
+        for (int index = 0; index < value; index++) {
+            searches[index] = new Search(transpositionTable, options);
+            searches[index].setDepthSkew(index & 1);
+        }
+        setIterationListener(iterationListener);
+        if (value > 1) {
+            helperPool = Executors.newFixedThreadPool(value - 1, runnable -> {
+                Thread thread = new Thread(runnable, "search-helper");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    //
+    // Sets what receives the result of every iteration completed by the
+    // main thread, with the nodes searched so far by all of the threads.
+    // It runs on the thread calling search.
+    //
+    public synchronized void setIterationListener(Consumer<SearchResult> listener) {
+        iterationListener = listener;
+        if (listener == null) {
+            searches[0].setIterationListener(null);
+            return;
+        }
+
+        Search[] threadSearches = searches;
+        searches[0].setIterationListener(result -> {
+            // Helper counts are read while they run, which is enough for
+            // reporting progress.
+            long nodes = 0;
+            for (Search search : threadSearches) {
+                nodes += search.getNodes();
+            }
+            listener.accept(new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                    result.getPrincipalVariation(), nodes, result.getElapsedMillis()));
+        });
+    }
+
+    //
+    // Retrieves the nodes searched by each thread on the last search.
+    //
+    public long[] getThreadNodes() {
+        return threadNodes.clone();
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    //
+    // Retrieves the share of beta cutoffs of the main thread produced by
+    // the first move searched, see Search.getFirstMoveCutoffRate.
+    //
+    public double getFirstMoveCutoffRate() {
+        return searches[0].getFirstMoveCutoffRate();
+    }
+
+    //
+    // Retrieves the pawn hash table hit rate of the main thread on the last
+    // search.
+    //
+    public double getPawnHashHitRate() {
+        return searches[0].getEvaluator().getPawnHashTable().getHitRate();
+    }
+
+    //
+    // Retrieves the quiescence nodes of the main thread on the last search.
+    //
+    public long getQuiescenceNodes() {
+        return searches[0].getQuiescenceNodes();
+    }
+
+    //
+    // Searches the position on every thread within the limits, returning
+    // the result of the main thread with the nodes of all of them.
+    //
+    public synchronized SearchResult search(Position root, SearchLimits limits) {
+        long start = System.currentTimeMillis();
+        // The table ages once per search, before any thread stores in it.
+        transpositionTable.newSearch();
+        // Helpers only stop when the main thread is done.
+        SearchLimits helperLimits = SearchLimits.depth(limits.getMaxDepth());
+        ArrayList<Future<SearchResult>> helpers = new ArrayList<>(searches.length - 1);
+        for (int index = 1; index < searches.length; index++) {
+            Search helper = searches[index];
+            helpers.add(helperPool.submit(() -> helper.search(root, helperLimits)));
+        }
+
+        SearchResult result = searches[0].search(root, limits);
+
+        threadNodes = new long[searches.length];
+        threadNodes[0] = searches[0].getNodes();
+        long nodes = threadNodes[0];
+        for (int index = 1; index < searches.length; index++) {
+            nodes += threadNodes[index] = stopHelper(searches[index], helpers.get(index - 1));
+        }
+        elapsedMillis = System.currentTimeMillis() - start;
+
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                result.getPrincipalVariation(), nodes, elapsedMillis);
+    }
+
+    //
+    // Stops a helper and waits for it, returning the nodes it searched. A
+    // helper which had not started yet when first stopped clears the flag
+    // on starting, so it is stopped again until it finishes.
+    //
+    private static long stopHelper(Search helper, Future<SearchResult> future) {
+        while (true) {
+            helper.stop();
+            try {
+                return future.get(HELPER_STOP_POLL_MILLIS, TimeUnit.MILLISECONDS).getNodes();
+            } catch (TimeoutException ex) {
+                // Not finished yet.
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return helper.getNodes();
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("A helper search failed.", ex.getCause());
+            }
+        }
+    }
+
+    //
+    // Aborts the search of every thread.
+    //
+    public void stop() {
+        for (Search search : searches) {
+            search.stop();
+        }
+    }
+
+    //
+    // Terminates the helper threads.
+    //
+    public synchronized void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdownNow();
+            helperPool = null;
+        }
+    }
+
+    //
+    // Searches the position to the passed depth with one thread and then
+    // with the passed amount of them, printing the nodes per second of
+    // every thread and the speedup of the time to reach the depth.
+    //
+    public static void report(Position root, int depth, int threads, int megabytes, SearchOptions options) {
+        SearchLimits limits = SearchLimits.depth(depth);
+        long singleMillis = 0;
+        // A first search lets the JIT compile the engine before timing it.
+        new Search(new TranspositionTable(megabytes), options).search(root, SearchLimits.depth(Math.max(1, depth - 1)));
+
+        for (int count : (threads == 1) ? new int[] {1} : new int[] {1, threads}) {
+            TranspositionTable table = new TranspositionTable(megabytes);
+            LazySmpSearch search = new LazySmpSearch(table, count, options);
+            SearchResult result = search.search(root, limits);
+            long elapsed = Math.max(1, search.getElapsedMillis());
+            search.shutdown();
+
+            System.out.printf("%d thread(s): depth %d, best %s, score %d, %d nodes in %d ms, %d nps%n", count,
+                    result.getDepth(), Move.toString(result.getBestMove()), result.getScore(), result.getNodes(),
+                    elapsed, result.getNodes() * 1000 / elapsed);
+            System.out.printf("  first move cutoffs: %.1f%%, quiescence nodes: %d (%.1f%% of main thread),"
+                    + " pawn hash hits: %.1f%%%n", search.getFirstMoveCutoffRate() * 100, search.getQuiescenceNodes(),
+                    search.getQuiescenceNodes() * 100.0 / Math.max(1, search.getThreadNodes()[0]),
+                    search.getPawnHashHitRate() * 100);
+            long[] nodes = search.getThreadNodes();
+            for (int index = 0; index < nodes.length; index++) {
+                System.out.printf("  thread %d: %d nodes, %d nps%n", index, nodes[index], nodes[index] * 1000 / elapsed);
+            }
+
+            if (count == 1) {
+                singleMillis = elapsed;
+            } else {
+                System.out.printf("speedup to depth %d: %.2fx%n", depth, (double)singleMillis / elapsed);
+            }
+        }
+    }
+}
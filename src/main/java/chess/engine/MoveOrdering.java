@@ -0,0 +1,189 @@
+package chess.engine;
+
+import chess.gameplay.MoveGenerator;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+
+import java.util.Arrays;
+
+// Heuristics deciding the order in which the moves of a node are searched:
+// the hash move first, then captures and promotions by most valuable
+// victim and least valuable attacker, then the killer moves of the ply,
+// the counter-move of the previous move and finally the quiet moves by
+// their history. Every table is a primitive array which survives between
+// iterations and searches, so that what was learnt keeps being used.
+class MoveOrdering {
+    // Killer moves remembered on every ply.
+    private static final int KILLERS_PER_PLY = 2;
+
+    // Score tiers, so that every move of a tier goes before the next one.
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+    private static final int COUNTER_MOVE_SCORE = KILLER_SCORE - KILLERS_PER_PLY;
+
+    // History values stay within this bound, below the counter-moves.
+    private static final int HISTORY_LIMIT = 1 << 14;
+
+    // Score of captures and promotions, indexed by the type of the victim
+    // (the promotion type for promotions) and the type of the attacker.
+    private static final int[][] MVV_LVA = new int[Position.PIECE_TYPE_COUNT][Position.PIECE_TYPE_COUNT];
+
+    static {
+        for (int victim = 0; victim < Position.PIECE_TYPE_COUNT; victim++) {
+            for (int attacker = 0; attacker < Position.PIECE_TYPE_COUNT; attacker++) {
+                // The king is the least valuable attacker, since its
+                // captures are known to be safe.
+                int attackerValue = (attacker == Position.KING) ? 0 : Position.MATERIAL_VALUES[attacker];
+                MVV_LVA[victim][attacker] = Position.MATERIAL_VALUES[victim] * 16 - attackerValue / 10;
+            }
+        }
+    }
+
+    // Moves which produced a beta cutoff, indexed by ply and slot.
+    private final int[] killers = new int[Search.MAX_PLY * KILLERS_PER_PLY];
+
+    // Moves refuting a move, indexed by the piece moved and its target.
+    private final int[] counterMoves = new int[Position.PIECE_CODE_COUNT * Position.SQUARE_COUNT];
+
+    // Success of the quiet moves, indexed by colour, origin and target.
+    private final int[] history = new int[2 * Position.SQUARE_COUNT * Position.SQUARE_COUNT];
+
+    // Scores of the moves of every ply.
+    private final int[][] scores = new int[Search.MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    //
+    // Forgets the killers, which belong to the plies of the last search,
+    // and halves the history, so that newer results weigh more.
+    //
+    void newSearch() {
+        Arrays.fill(killers, Move.NONE);
+        for (int index = 0; index < history.length; index++) {
+            history[index] /= 2;
+        }
+    }
+
+    //
+    // Scores the moves of the ply, to be then picked with pickMove.
+    //
+    void scoreMoves(Position position, int[] moves, int moveCount, int hashMove, int ply) {
+        int[] plyScores = scores[ply];
+        int us = position.getSideToMove();
+        int killer1 = killers[ply * KILLERS_PER_PLY];
+        int killer2 = killers[ply * KILLERS_PER_PLY + 1];
+        int counterMove = getCounterMove(position);
+
+        for (int index = 0; index < moveCount; index++) {
+            int move = moves[index];
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (isTactical(position, move)) {
+                score = CAPTURE_SCORE + scoreTactical(position, move);
+            } else if (move == killer1) {
+                score = KILLER_SCORE;
+            } else if (move == killer2) {
+                score = KILLER_SCORE - 1;
+            } else if (move == counterMove) {
+                score = COUNTER_MOVE_SCORE;
+            } else {
+                score = history[historyIndex(us, move)];
+            }
+            plyScores[index] = score;
+        }
+    }
+
+    //
+    // Moves the best scored move among the ones not searched yet to the
+    // passed index, and returns it. Sorting lazily saves ordering the moves
+    // which a cutoff makes unnecessary.
+    //
+    int pickMove(int[] moves, int moveCount, int index, int ply) {
+        int[] plyScores = scores[ply];
+        int best = index;
+        for (int candidate = index + 1; candidate < moveCount; candidate++) {
+            if (plyScores[candidate] > plyScores[best]) {
+                best = candidate;
+            }
+        }
+
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = plyScores[best];
+        plyScores[best] = plyScores[index];
+        plyScores[index] = score;
+        return move;
+    }
+
+    //
+    // Learns from a quiet move producing a beta cutoff: it becomes a killer
+    // and the counter-move of the previous move, its history grows, and the
+    // history of the quiet moves searched before it shrinks.
+    //
+    void recordCutoff(Position position, int move, int ply, int depth, int[] quietsSearched, int quietCount) {
+        int slot = ply * KILLERS_PER_PLY;
+        if (killers[slot] != move) {
+            killers[slot + 1] = killers[slot];
+            killers[slot] = move;
+        }
+
+        int lastMove = position.getLastMove();
+        if (lastMove != Move.NONE) {
+            int to = Move.to(lastMove);
+            counterMoves[position.getPieceAt(to) * Position.SQUARE_COUNT + to] = move;
+        }
+
+        int us = position.getSideToMove();
+        int bonus = Math.min(depth * depth, HISTORY_LIMIT / 4);
+        updateHistory(historyIndex(us, move), bonus);
+        for (int index = 0; index < quietCount; index++) {
+            if (quietsSearched[index] != move) {
+                updateHistory(historyIndex(us, quietsSearched[index]), -bonus);
+            }
+        }
+    }
+
+    //
+    // Indicates whether or not the move captures or promotes, which is
+    // checked before making it.
+    //
+    static boolean isTactical(Position position, int move) {
+        return (position.getPieceAt(Move.to(move)) != Position.NO_PIECE) || Move.isEnPassant(move)
+                || Move.isPromotion(move);
+    }
+
+    private static int scoreTactical(Position position, int move) {
+        int attacker = Position.typeOf(position.getPieceAt(Move.from(move)));
+        int victim = position.getPieceAt(Move.to(move));
+        int score = (victim != Position.NO_PIECE) ? MVV_LVA[Position.typeOf(victim)][attacker]
+                : Move.isEnPassant(move) ? MVV_LVA[Position.PAWN][Position.PAWN] : 0;
+        // Only queen promotions are worth searching early.
+        if (Move.isPromotion(move)) {
+            score = (Move.promotionType(move) == Position.QUEEN)
+                    ? score + MVV_LVA[Position.QUEEN][Position.PAWN] : -CAPTURE_SCORE;
+        }
+        return score;
+    }
+
+    private int getCounterMove(Position position) {
+        int lastMove = position.getLastMove();
+        if (lastMove == Move.NONE) {
+            return Move.NONE;
+        }
+        int to = Move.to(lastMove);
+        return counterMoves[position.getPieceAt(to) * Position.SQUARE_COUNT + to];
+    }
+
+    //
+    // Moves the history value towards the limit of the sign of the bonus,
+    // less the closer it already is, so that it never leaves the bounds.
+    //
+    private void updateHistory(int index, int bonus) {
+        history[index] += bonus - history[index] * Math.abs(bonus) / HISTORY_LIMIT;
+    }
+
+    private static int historyIndex(int color, int move) {
+        return (color * Position.SQUARE_COUNT + Move.from(move)) * Position.SQUARE_COUNT + Move.to(move);
+    }
+}
@@ -0,0 +1,189 @@
+package chess.engine;
+
+import chess.gameplay.MoveGenerator;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+
+import java.util.Random;
+
+// Evaluator running a NNUE network. The hidden layer of each perspective
+// is kept in an accumulator per ply: making a move copies the accumulator
+// of the ply and adds and subtracts the weight columns of the features the
+// move changes, at most four, while unmaking one just returns to the
+// accumulator of the previous ply.
+public class NnueEvaluator extends Evaluator {
+    private final NnueNetwork network;
+    private final NnueKernels kernels;
+    private final int hiddenSize;
+
+    // Accumulators of each ply, the first player's perspective followed by
+    // the second player's one.
+    private final short[][] accumulators;
+
+    // Ply of the accumulator matching the position.
+    private int ply;
+
+    public NnueEvaluator(NnueNetwork network) {
+        this(network, NnueKernels.create());
+    }
+
+    NnueEvaluator(NnueNetwork network, NnueKernels kernels) {
+        this.network = network;
+        this.kernels = kernels;
+        this.hiddenSize = network.getHiddenSize();
+        accumulators = new short[Search.MAX_PLY + 1][2 * hiddenSize];
+    }
+
+    public NnueNetwork getNetwork() {
+        return network;
+    }
+
+    //
+    // Retrieves the name of the arithmetic kernels in use.
+    //
+    public String getKernelName() {
+        return kernels.getName();
+    }
+
+    //
+    // Computes the accumulators of the root from scratch.
+    //
+    @Override
+    public void reset(Position root) {
+        ply = 0;
+        short[] accumulator = accumulators[0];
+        short[] weights = network.getFeatureWeights();
+        for (int perspective = Position.WHITE; perspective <= Position.BLACK; perspective++) {
+            int offset = perspective * hiddenSize;
+            System.arraycopy(network.getHiddenBiases(), 0, accumulator, offset, hiddenSize);
+            for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+                int piece = root.getPieceAt(square);
+                if (piece != Position.NO_PIECE) {
+                    kernels.add(accumulator, offset, weights,
+                            NnueNetwork.featureIndex(perspective, piece, square) * hiddenSize, hiddenSize);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void makeMove(Position position, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int piece = position.getPieceAt(from);
+        int us = Position.colorOf(piece);
+        int capturedSquare = Move.isEnPassant(move) ? to + ((us == Position.WHITE) ? -8 : 8) : to;
+        int captured = Move.isCastling(move) ? Position.NO_PIECE : position.getPieceAt(capturedSquare);
+        int placed = Move.isPromotion(move) ? Position.pieceCode(us, Move.promotionType(move)) : piece;
+
+        short[] accumulator = accumulators[ply + 1];
+        System.arraycopy(accumulators[ply], 0, accumulator, 0, 2 * hiddenSize);
+        ply++;
+        for (int perspective = Position.WHITE; perspective <= Position.BLACK; perspective++) {
+            int offset = perspective * hiddenSize;
+            subtract(accumulator, offset, perspective, piece, from);
+            add(accumulator, offset, perspective, placed, to);
+            if (captured != Position.NO_PIECE) {
+                subtract(accumulator, offset, perspective, captured, capturedSquare);
+            }
+            if (Move.isCastling(move)) {
+                int rook = Position.pieceCode(us, Position.ROOK);
+                boolean kingside = to > from;
+                subtract(accumulator, offset, perspective, rook, kingside ? to + 1 : to - 2);
+                add(accumulator, offset, perspective, rook, kingside ? to - 1 : to + 1);
+            }
+        }
+    }
+
+    @Override
+    public void unmakeMove() {
+        ply--;
+    }
+
+    @Override
+    public void makeNullMove() {
+        System.arraycopy(accumulators[ply], 0, accumulators[ply + 1], 0, 2 * hiddenSize);
+        ply++;
+    }
+
+    @Override
+    public void unmakeNullMove() {
+        ply--;
+    }
+
+    //
+    // Scores the position with the network, from the point of view of the
+    // side to move. The accumulators must match the position.
+    //
+    @Override
+    public int evaluate(Position position) {
+        short[] accumulator = accumulators[ply];
+        short[] weights = network.getOutputWeights();
+        int us = position.getSideToMove();
+        int sum = kernels.clippedDot(accumulator, us * hiddenSize, weights, 0, hiddenSize)
+                + kernels.clippedDot(accumulator, (us ^ 1) * hiddenSize, weights, hiddenSize, hiddenSize);
+        return (int)((sum + (long)network.getOutputBias()) * NnueNetwork.SCALE
+                / (NnueNetwork.QA * NnueNetwork.QB));
+    }
+
+    private void add(short[] accumulator, int offset, int perspective, int piece, int square) {
+        kernels.add(accumulator, offset, network.getFeatureWeights(),
+                NnueNetwork.featureIndex(perspective, piece, square) * hiddenSize, hiddenSize);
+    }
+
+    private void subtract(short[] accumulator, int offset, int perspective, int piece, int square) {
+        kernels.subtract(accumulator, offset, network.getFeatureWeights(),
+                NnueNetwork.featureIndex(perspective, piece, square) * hiddenSize, hiddenSize);
+    }
+
+    //
+    // Plays random games from the position, making, evaluating and unmaking
+    // moves the same way a search does, and prints the evaluations per
+    // second of the hand-written evaluator and of the network.
+    //
+    public static void benchmark(NnueNetwork network, Position root, int evaluations) {
+        Evaluator[] evaluators = {new Evaluator(), new NnueEvaluator(network)};
+        for (int round = 0; round < 2; round++) {
+            // The first round only lets the JIT compile the code.
+            for (Evaluator evaluator : evaluators) {
+                long start = System.nanoTime();
+                long checksum = playRandomly(evaluator, root, evaluations);
+                long elapsed = Math.max(1, System.nanoTime() - start);
+                if (round == 1) {
+                    String name = (evaluator instanceof NnueEvaluator)
+                            ? "nnue " + network.getHiddenSize() + " hidden, "
+                            + ((NnueEvaluator)evaluator).getKernelName()
+                            : "hand-written";
+                    System.out.printf("%s: %d evaluations in %d ms, %d evaluations/s (checksum %d)%n", name,
+                            evaluations, elapsed / 1_000_000, (long)(evaluations * 1e9 / elapsed), checksum);
+                }
+            }
+        }
+    }
+
+    private static long playRandomly(Evaluator evaluator, Position root, int evaluations) {
+        Position position = new Position(root);
+        Random random = new Random(evaluations);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int depth = 0;
+        long checksum = 0;
+        evaluator.reset(position);
+        for (int count = 0; count < evaluations; count++) {
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+            if ((moveCount == 0) || (depth == Search.MAX_PLY - 1) || ((depth > 0) && random.nextBoolean())) {
+                if (depth > 0) {
+                    position.unmakeMove();
+                    evaluator.unmakeMove();
+                    depth--;
+                }
+            } else {
+                int move = moves[random.nextInt(moveCount)];
+                evaluator.makeMove(position, move);
+                position.makeMove(move);
+                depth++;
+            }
+            checksum += evaluator.evaluate(position);
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,60 @@
+package chess.engine;
+
+// Arithmetic of the NNUE evaluator over 16-bit vectors, implemented with
+// plain loops here and with the Vector API by VectorNnueKernels, which is
+// used when the jdk.incubator.vector module is present at run time.
+class NnueKernels {
+    //
+    // Retrieves the fastest kernels available.
+    //
+    static NnueKernels create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (NnueKernels)Class.forName("chess.engine.VectorNnueKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError ex) {
+                // The scalar kernels below always work.
+            }
+        }
+        return new NnueKernels();
+    }
+
+    //
+    // Retrieves the name of the implementation, for reports.
+    //
+    String getName() {
+        return "scalar";
+    }
+
+    //
+    // Adds the column of weights starting at 'column' to the accumulator.
+    //
+    void add(short[] accumulator, int offset, short[] weights, int column, int size) {
+        for (int index = 0; index < size; index++) {
+            accumulator[offset + index] += weights[column + index];
+        }
+    }
+
+    //
+    // Subtracts the column of weights starting at 'column' from the
+    // accumulator.
+    //
+    void subtract(short[] accumulator, int offset, short[] weights, int column, int size) {
+        for (int index = 0; index < size; index++) {
+            accumulator[offset + index] -= weights[column + index];
+        }
+    }
+
+    //
+    // Computes the dot product of the accumulator, clipped to [0, QA],
+    // with the weights.
+    //
+    int clippedDot(short[] accumulator, int offset, short[] weights, int column, int size) {
+        int sum = 0;
+        for (int index = 0; index < size; index++) {
+            int value = Math.max(0, Math.min(accumulator[offset + index], NnueNetwork.QA));
+            sum += value * weights[column + index];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,166 @@
+package chess.engine;
+
+import chess.gameplay.world.Position;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+// Quantized weights of a small NNUE network: 768 inputs, one per piece code
+// and square seen from each side, a hidden layer computed for both sides
+// into accumulators of 16-bit integers, and an output neuron reading the
+// clipped accumulators of the side to move and of its opponent.
+//
+// File layout, every value little-endian:
+//   int      MAGIC
+//   int      hidden size H
+//   short[]  feature weights, H per feature, feature by feature
+//   short[]  hidden biases, H
+//   short[]  output weights, H for the side to move then H for the other
+//   int      output bias
+public class NnueNetwork {
+    // First word of a weights file, "NNUE" in ASCII.
+    public static final int MAGIC = 0x4E4E5545;
+
+    // Inputs: piece type relative to the perspective (own pieces first),
+    // times 64 squares, mirrored vertically for the second player.
+    public static final int FEATURE_COUNT = 2 * Position.PIECE_TYPE_COUNT * Position.SQUARE_COUNT;
+
+    // Value accumulators are clipped to before the output layer.
+    public static final int QA = 255;
+
+    // Scale of the output weights.
+    public static final int QB = 64;
+
+    // Centipawns of an output of 1.0.
+    public static final int SCALE = 400;
+
+    private final int hiddenSize;
+    private final short[] featureWeights;
+    private final short[] hiddenBiases;
+    private final short[] outputWeights;
+    private final int outputBias;
+
+    public NnueNetwork(int hiddenSize, short[] featureWeights, short[] hiddenBiases, short[] outputWeights,
+                       int outputBias) {
+        if ((hiddenSize < 1) || (featureWeights.length != FEATURE_COUNT * hiddenSize)
+                || (hiddenBiases.length != hiddenSize) || (outputWeights.length != 2 * hiddenSize)) {
+            throw new IllegalArgumentException("'hiddenSize' holds an invalid value: " + hiddenSize);
+        }
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.hiddenBiases = hiddenBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    public int getHiddenSize() {
+        return hiddenSize;
+    }
+
+    short[] getFeatureWeights() {
+        return featureWeights;
+    }
+
+    short[] getHiddenBiases() {
+        return hiddenBiases;
+    }
+
+    short[] getOutputWeights() {
+        return outputWeights;
+    }
+
+    int getOutputBias() {
+        return outputBias;
+    }
+
+    //
+    // Retrieves the input of a piece code on a square, as seen by the
+    // passed perspective.
+    //
+    public static int featureIndex(int perspective, int piece, int square) {
+        int relativeType = ((Position.colorOf(piece) == perspective) ? 0 : Position.PIECE_TYPE_COUNT)
+                + Position.typeOf(piece);
+        int relativeSquare = (perspective == Position.WHITE) ? square : (square ^ 56);
+        return relativeType * Position.SQUARE_COUNT + relativeSquare;
+    }
+
+    //
+    // Loads the network stored on a weights file.
+    //
+    public static NnueNetwork load(Path path) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(path))) {
+            DataInputStream input = new DataInputStream(stream);
+            if (Integer.reverseBytes(input.readInt()) != MAGIC) {
+                throw new IOException("Not an NNUE weights file: " + path);
+            }
+            int hiddenSize = Integer.reverseBytes(input.readInt());
+            if ((hiddenSize < 1) || (hiddenSize > (1 << 16))) {
+                throw new IOException("Invalid hidden size on " + path + ": " + hiddenSize);
+            }
+
+            short[] featureWeights = readShorts(input, FEATURE_COUNT * hiddenSize);
+            short[] hiddenBiases = readShorts(input, hiddenSize);
+            short[] outputWeights = readShorts(input, 2 * hiddenSize);
+            int outputBias = Integer.reverseBytes(input.readInt());
+            return new NnueNetwork(hiddenSize, featureWeights, hiddenBiases, outputWeights, outputBias);
+        }
+    }
+
+    //
+    // Stores the network on a weights file.
+    //
+    public void save(Path path) throws IOException {
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(path))) {
+            DataOutputStream output = new DataOutputStream(stream);
+            output.writeInt(Integer.reverseBytes(MAGIC));
+            output.writeInt(Integer.reverseBytes(hiddenSize));
+            writeShorts(output, featureWeights);
+            writeShorts(output, hiddenBiases);
+            writeShorts(output, outputWeights);
+            output.writeInt(Integer.reverseBytes(outputBias));
+        }
+    }
+
+    //
+    // Creates a network of random weights, which plays no good chess but
+    // costs as much to evaluate as a trained one of the same size.
+    //
+    public static NnueNetwork random(int hiddenSize, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        short[] featureWeights = new short[FEATURE_COUNT * hiddenSize];
+        for (int index = 0; index < featureWeights.length; index++) {
+            featureWeights[index] = (short)random.nextInt(-32, 33);
+        }
+        short[] hiddenBiases = new short[hiddenSize];
+        for (int index = 0; index < hiddenSize; index++) {
+            hiddenBiases[index] = (short)random.nextInt(0, QA / 2);
+        }
+        short[] outputWeights = new short[2 * hiddenSize];
+        for (int index = 0; index < outputWeights.length; index++) {
+            outputWeights[index] = (short)random.nextInt(-QB, QB + 1);
+        }
+        return new NnueNetwork(hiddenSize, featureWeights, hiddenBiases, outputWeights, 0);
+    }
+
+    private static short[] readShorts(DataInputStream input, int count) throws IOException {
+        short[] values = new short[count];
+        for (int index = 0; index < count; index++) {
+            values[index] = Short.reverseBytes(input.readShort());
+        }
+        return values;
+    }
+
+    private static void writeShorts(DataOutputStream output, short[] values) throws IOException {
+        for (short value : values) {
+            output.writeShort(Short.reverseBytes(value));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chess.engine;
+
+import chess.gameplay.world.Position;
+
+// Direct-mapped cache of the pawn structure scores, indexed by the pawn
+// hash key of the position. Pawns move far less often than the other
+// pieces, so most evaluations find their structure already scored.
+// Each search thread owns its table, which thus needs no synchronization.
+public class PawnHashTable {
+    // Entries held unless configured otherwise; a power of two.
+    public static final int DEFAULT_ENTRIES = 1 << 14;
+
+    // Key and packed score of each entry.
+    private final long[] keys;
+    private final int[] scores;
+    private final boolean[] used;
+    private final int mask;
+
+    // Counters of the lookups, for measuring the hit rate.
+    private long probes;
+    private long hits;
+
+    public PawnHashTable() {
+        this(DEFAULT_ENTRIES);
+    }
+
+    public PawnHashTable(int entries) {
+        if ((entries < 1) || (Integer.bitCount(entries) != 1)) {
+            throw new IllegalArgumentException("'entries' holds an invalid value: " + entries);
+        }
+        keys = new long[entries];
+        scores = new int[entries];
+        used = new boolean[entries];
+        mask = entries - 1;
+    }
+
+    //
+    // Retrieves the packed pawn structure score of the position, scoring
+    // and storing it when not cached yet.
+    //
+    public int probe(Position position) {
+        long key = position.getPawnHashKey();
+        int index = (int)key & mask;
+        probes++;
+        if (used[index] && (keys[index] == key)) {
+            hits++;
+            return scores[index];
+        }
+
+        int score = PawnStructure.evaluate(position);
+        keys[index] = key;
+        scores[index] = score;
+        used[index] = true;
+        return score;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public double getHitRate() {
+        return (probes == 0) ? 0 : (double)hits / probes;
+    }
+
+    //
+    // Starts counting the lookups over, keeping the entries.
+    //
+    public void resetCounters() {
+        probes = 0;
+        hits = 0;
+    }
+}
@@ -0,0 +1,149 @@
+package chess.engine;
+
+import chess.gameplay.world.AttackTables;
+import chess.gameplay.world.PieceSquareTables;
+import chess.gameplay.world.Position;
+
+// Evaluation terms of the pawn structure: doubled, isolated, backward and
+// passed pawns, which only depend on the pawns and are cached on the pawn
+// hash table, and the shield of pawns in front of each king. Scores are
+// packed as in PieceSquareTables and given from the point of view of the
+// first player.
+final class PawnStructure {
+    // Penalties and bonuses, packed as middlegame and endgame values.
+    private static final int DOUBLED = PieceSquareTables.pack(-10, -25);
+    private static final int ISOLATED = PieceSquareTables.pack(-5, -15);
+    private static final int BACKWARD = PieceSquareTables.pack(-8, -10);
+    private static final int[] PASSED = {
+            0, PieceSquareTables.pack(5, 10), PieceSquareTables.pack(10, 20), PieceSquareTables.pack(15, 35),
+            PieceSquareTables.pack(30, 60), PieceSquareTables.pack(50, 100), PieceSquareTables.pack(80, 150), 0
+    };
+    private static final int SHIELD_NEAR = PieceSquareTables.pack(12, 0);
+    private static final int SHIELD_FAR = PieceSquareTables.pack(6, 0);
+
+    private static final long COLUMN_A = 0x0101010101010101L;
+
+    // Squares of each column, and of the columns next to each column.
+    private static final long[] COLUMNS = new long[8];
+    private static final long[] ADJACENT_COLUMNS = new long[8];
+
+    // Squares in front of each square on its own and adjacent columns,
+    // indexed by colour and square, and the squares of the adjacent
+    // columns on the same row or behind it.
+    private static final long[][] PASSED_SPANS = new long[2][Position.SQUARE_COUNT];
+    private static final long[][] SUPPORT_SPANS = new long[2][Position.SQUARE_COUNT];
+
+    static {
+        for (int column = 0; column < 8; column++) {
+            COLUMNS[column] = COLUMN_A << column;
+        }
+        for (int column = 0; column < 8; column++) {
+            ADJACENT_COLUMNS[column] = ((column > 0) ? COLUMNS[column - 1] : 0)
+                    | ((column < 7) ? COLUMNS[column + 1] : 0);
+        }
+        for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+            int column = Position.columnOf(square);
+            int row = Position.rowOf(square);
+            long span = COLUMNS[column] | ADJACENT_COLUMNS[column];
+            // Rows strictly above and below the square's row.
+            long above = (row == 7) ? 0 : (-1L << ((row + 1) * 8));
+            long below = (row == 0) ? 0 : (-1L >>> ((8 - row) * 8));
+            long rowMask = 0xFFL << (row * 8);
+            PASSED_SPANS[Position.WHITE][square] = span & above;
+            PASSED_SPANS[Position.BLACK][square] = span & below;
+            SUPPORT_SPANS[Position.WHITE][square] = ADJACENT_COLUMNS[column] & (below | rowMask);
+            SUPPORT_SPANS[Position.BLACK][square] = ADJACENT_COLUMNS[column] & (above | rowMask);
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    //
+    // Scores the pawn structure of the position, packed, from the point of
+    // view of the first player.
+    //
+    static int evaluate(Position position) {
+        return evaluate(position, Position.WHITE) - evaluate(position, Position.BLACK);
+    }
+
+    private static int evaluate(Position position, int us) {
+        int them = us ^ 1;
+        long ours = position.getPieces(us, Position.PAWN);
+        long theirs = position.getPieces(them, Position.PAWN);
+        int forward = (us == Position.WHITE) ? 8 : -8;
+        int score = 0;
+
+        for (int column = 0; column < 8; column++) {
+            int count = Long.bitCount(ours & COLUMNS[column]);
+            if (count > 1) {
+                score += DOUBLED * (count - 1);
+            }
+        }
+
+        long pawns = ours;
+        while (pawns != 0) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            int column = Position.columnOf(square);
+
+            if ((ours & ADJACENT_COLUMNS[column]) == 0) {
+                score += ISOLATED;
+            } else if ((ours & SUPPORT_SPANS[us][square]) == 0) {
+                // No pawn can come to its support, and advancing would put
+                // it in front of an enemy pawn.
+                int stop = square + forward;
+                if ((stop >= 0) && (stop < Position.SQUARE_COUNT)
+                        && ((AttackTables.pawnAttacks(us, stop) & theirs) != 0)) {
+                    score += BACKWARD;
+                }
+            }
+
+            // Pawns blocked by an own pawn are not counted as passed, the
+            // front one is.
+            if (((theirs & PASSED_SPANS[us][square]) == 0)
+                    && ((ours & COLUMNS[column] & PASSED_SPANS[us][square]) == 0)) {
+                int row = Position.rowOf(square);
+                score += PASSED[(us == Position.WHITE) ? row : 7 - row];
+            }
+        }
+
+        return score;
+    }
+
+    //
+    // Scores the pawn shields of both kings, packed, from the point of view
+    // of the first player. The kings move too often for the shields to be
+    // worth caching with the rest of the structure.
+    //
+    static int evaluateShields(Position position) {
+        return evaluateShield(position, Position.WHITE, position.getPieces(Position.WHITE, Position.PAWN))
+                - evaluateShield(position, Position.BLACK, position.getPieces(Position.BLACK, Position.PAWN));
+    }
+
+    //
+    // Rewards the pawns standing in front of the king, on its column and
+    // the adjacent ones, in the two rows ahead of it.
+    //
+    private static int evaluateShield(Position position, int us, long ours) {
+        int king = position.getKingSquare(us);
+        if (king == Position.NO_SQUARE) {
+            return 0;
+        }
+
+        int column = Position.columnOf(king);
+        int row = Position.rowOf(king);
+        int direction = (us == Position.WHITE) ? 1 : -1;
+        long columns = COLUMNS[column] | ADJACENT_COLUMNS[column];
+        int score = 0;
+        int nearRow = row + direction;
+        if ((nearRow >= 0) && (nearRow < 8)) {
+            score += SHIELD_NEAR * Long.bitCount(ours & columns & (0xFFL << (nearRow * 8)));
+        }
+        int farRow = row + 2 * direction;
+        if ((farRow >= 0) && (farRow < 8)) {
+            score += SHIELD_FAR * Long.bitCount(ours & columns & (0xFFL << (farRow * 8)));
+        }
+        return score;
+    }
+}
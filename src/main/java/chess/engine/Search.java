@@ -0,0 +1,562 @@
+package chess.engine;
+
+import chess.gameplay.MoveGenerator;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Negamax alpha-beta search with iterative deepening. Every iteration
+// searches one ply deeper than the previous one, so that the best move of
+// the last completed iteration is available whenever time runs out. Moves
+// are made and unmade on a single position, and the move lists and the
+// principal variation table are allocated once per instance. Results are
+// kept on a transposition table, which may be shared with other searches.
+public class Search {
+    // Deepest ply the search can reach.
+    public static final int MAX_PLY = 128;
+
+    // Score of being mated on the current ply; mates found further away
+    // score closer to zero.
+    public static final int MATE = 32000;
+
+    // Scores beyond this bound announce a forced mate.
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    // Bound larger than any score.
+    public static final int INFINITY = MATE + 1;
+
+    // Nodes visited between two checks of the limits.
+    private static final int LIMITS_CHECK_INTERVAL = 2048;
+
+    // Half width of the first aspiration window, in centipawns.
+    private static final int ASPIRATION_WINDOW = 25;
+
+    // Iteration from which the root is searched with aspiration windows.
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+
+    // Remaining depth from which null moves and reductions are tried.
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int REDUCTION_MIN_DEPTH = 3;
+
+    // Moves searched at full depth before reducing the rest.
+    private static final int FULL_DEPTH_MOVES = 3;
+
+    // Non-pawn material below which a null move cutoff is verified, since
+    // such endgames are prone to zugzwang.
+    private static final int NULL_MOVE_VERIFICATION_MATERIAL = 500;
+
+    // Reduction of the late moves, indexed by remaining depth and by the
+    // amount of moves searched before.
+    private static final int[][] REDUCTIONS = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    static {
+        for (int depth = 1; depth < MAX_PLY; depth++) {
+            for (int index = 1; index < MoveGenerator.MAX_MOVES; index++) {
+                REDUCTIONS[depth][index] = (int)(0.75 + Math.log(depth) * Math.log(index) / 2.25);
+            }
+        }
+    }
+
+    // Position the moves are made and unmade on.
+    private final Position position = new Position();
+
+    // Table keeping the results of the positions searched.
+    private final TranspositionTable transpositionTable;
+
+    // Selective techniques in use.
+    private final SearchOptions options;
+
+    // Move list of each ply.
+    private final int[][] moveLists = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    // Quiet moves searched on each ply, whose history a cutoff lowers.
+    private final int[][] quietLists = new int[MAX_PLY][MoveGenerator.MAX_MOVES];
+
+    // Heuristics ordering the moves of every node.
+    private final MoveOrdering ordering = new MoveOrdering();
+
+    // Exchange evaluation pruning the losing captures of the quiescence
+    // search.
+    private final StaticExchange staticExchange = new StaticExchange();
+
+    // Static evaluation of the leaves, the network of the options when
+    // there is one.
+    private Evaluator evaluator = new Evaluator();
+
+    // Triangular table holding the principal variation found from each ply.
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+
+    // Set for aborting the search from any thread.
+    private volatile boolean stopped;
+
+    // Plies added to the depth of every iteration. Helper threads of a
+    // parallel search use it so that they do not all search the same tree.
+    private int depthSkew;
+
+    public int getDepthSkew() {
+        return depthSkew;
+    }
+
+    public void setDepthSkew(int value) {
+        depthSkew = value;
+    }
+
+    // Receives the result of every completed iteration, or null.
+    private Consumer<SearchResult> iterationListener;
+
+    public void setIterationListener(Consumer<SearchResult> listener) {
+        iterationListener = listener;
+    }
+
+    // Limits of the running search, read on every check since they may be
+    // changed from other threads while pondering.
+    private SearchLimits limits;
+    private long startTime;
+
+    // Statistics of the running search.
+    private long nodes;
+    private long quiescenceNodes;
+    private long betaCutoffs;
+    private long firstMoveCutoffs;
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    //
+    // Retrieves the nodes searched by the quiescence search, which are
+    // also part of the total nodes.
+    //
+    public long getQuiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    public long getBetaCutoffs() {
+        return betaCutoffs;
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    //
+    // Creates a search with a table of the default size of its own.
+    //
+    public Search() {
+        this(new TranspositionTable());
+    }
+
+    //
+    // Creates a search storing its results on the passed table, with every
+    // selective technique on.
+    //
+    public Search(TranspositionTable transpositionTable) {
+        this(transpositionTable, new SearchOptions());
+    }
+
+    //
+    // Creates a search storing its results on the passed table, with the
+    // selective techniques of the options.
+    //
+    public Search(TranspositionTable transpositionTable, SearchOptions options) {
+        this.transpositionTable = transpositionTable;
+        this.options = options;
+    }
+
+    public SearchOptions getOptions() {
+        return options;
+    }
+
+    //
+    // Retrieves the share of beta cutoffs produced by the first move
+    // searched, which measures the quality of the move ordering.
+    //
+    public double getFirstMoveCutoffRate() {
+        return (betaCutoffs == 0) ? 0 : (double)firstMoveCutoffs / betaCutoffs;
+    }
+
+    //
+    // Aborts the running search, which then returns its last result.
+    //
+    public void stop() {
+        stopped = true;
+    }
+
+    //
+    // Searches the position within the limits, returning the result of the
+    // deepest completed iteration. The age of the table is left to whoever
+    // runs the search, as it belongs to every thread sharing the table.
+    //
+    public SearchResult search(Position root, SearchLimits limits) {
+        position.copyFrom(root);
+        stopped = false;
+        nodes = 0;
+        quiescenceNodes = 0;
+        betaCutoffs = 0;
+        firstMoveCutoffs = 0;
+        this.limits = limits;
+        startTime = System.currentTimeMillis();
+        selectEvaluator();
+        evaluator.reset(position);
+        ordering.newSearch();
+        evaluator.getPawnHashTable().resetCounters();
+
+        // Any legal move is better than none if the first iteration aborts.
+        int[] rootMoves = moveLists[0];
+        int rootMoveCount = MoveGenerator.generateLegalMoves(position, rootMoves);
+        if (rootMoveCount == 0) {
+            return new SearchResult(0, position.isInCheck() ? -MATE : 0, 0, new int[0], 0, 0);
+        }
+        SearchResult result = new SearchResult(rootMoves[0], 0, 0, new int[]{rootMoves[0]}, 0, 0);
+
+        int score = 0;
+        for (int depth = 1; depth <= limits.getMaxDepth(); depth++) {
+            int searchDepth = Math.min(depth + depthSkew, MAX_PLY - 1);
+            score = searchRoot(searchDepth, score);
+            if (stopped) {
+                break;
+            }
+
+            result = new SearchResult(pvTable[0][0], score, searchDepth, Arrays.copyOf(pvTable[0], pvLength[0]), nodes,
+                    System.currentTimeMillis() - startTime);
+            if (iterationListener != null) {
+                iterationListener.accept(result);
+            }
+            // A single legal move, or a forced mate, needs no deeper search.
+            if ((rootMoveCount == 1) || (Math.abs(score) >= MATE_BOUND)
+                    || isPastDeadline(limits.getSoftTimeMillis())) {
+                break;
+            }
+        }
+
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(),
+                result.getPrincipalVariation(), nodes, System.currentTimeMillis() - startTime);
+    }
+
+    //
+    // Searches the root to the depth. With aspiration windows, the window
+    // is centred on the score of the previous iteration, and widened on the
+    // side the score falls out of until the score lands within it.
+    //
+    private int searchRoot(int depth, int previousScore) {
+        if (!options.isAspirationWindows() || (depth < ASPIRATION_MIN_DEPTH)
+                || (Math.abs(previousScore) >= MATE_BOUND)) {
+            return negamax(depth, 0, -INFINITY, INFINITY, false);
+        }
+
+        int delta = ASPIRATION_WINDOW;
+        int alpha = Math.max(previousScore - delta, -INFINITY);
+        int beta = Math.min(previousScore + delta, INFINITY);
+        while (true) {
+            int score = negamax(depth, 0, alpha, beta, false);
+            if (stopped) {
+                return score;
+            }
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -INFINITY);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITY);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    //
+    // Searches the current position to the remaining depth, returning its
+    // score from the point of view of the side to move. Null moves are not
+    // tried right after another one.
+    //
+    private int negamax(int depth, int ply, int alpha, int beta, boolean afterNullMove) {
+        pvLength[ply] = ply;
+        if ((++nodes % LIMITS_CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+
+        if ((ply > 0) && position.isDraw()) {
+            return 0;
+        }
+
+        boolean inCheck = position.isInCheck();
+        // Checks are extended, so that the horizon does not hide them.
+        if (inCheck) {
+            depth++;
+        }
+        if ((depth <= 0) || (ply >= MAX_PLY - 1)) {
+            return quiescence(ply, alpha, beta);
+        }
+
+        // A result at least as deep as the one needed ends the search of
+        // the node when its bound agrees with the window. The root always
+        // searches, so that it gets a principal variation.
+        long key = position.getHashKey();
+        long entry = transpositionTable.probe(key);
+        int hashMove = Move.NONE;
+        if (entry != TranspositionTable.MISS) {
+            hashMove = TranspositionTable.moveOf(entry);
+            int hashScore = TranspositionTable.scoreOf(entry, ply);
+            int bound = TranspositionTable.boundOf(entry);
+            if ((ply > 0) && (TranspositionTable.depthOf(entry) >= depth)
+                    && ((bound == TranspositionTable.EXACT)
+                    || ((bound == TranspositionTable.LOWER_BOUND) && (hashScore >= beta))
+                    || ((bound == TranspositionTable.UPPER_BOUND) && (hashScore <= alpha)))) {
+                return hashScore;
+            }
+        } else if (ply == 0) {
+            hashMove = pvTable[0][0];
+        }
+
+        // Null window nodes only need to know whether the score reaches
+        // beta, which lets them be pruned more aggressively.
+        boolean pvNode = (beta - alpha) > 1;
+        if (options.isNullMovePruning() && !pvNode && !inCheck && !afterNullMove
+                && (depth >= NULL_MOVE_MIN_DEPTH) && (Math.abs(beta) < MATE_BOUND)
+                && (nonPawnMaterial(position.getSideToMove()) > 0) && (evaluate() >= beta)) {
+            int reduction = 2 + depth / 4;
+            position.makeNullMove();
+            evaluator.makeNullMove();
+            int score = -negamax(depth - 1 - reduction, ply + 1, -beta, -beta + 1, true);
+            position.unmakeNullMove();
+            evaluator.unmakeNullMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score >= beta) {
+                // With little material left, passing may be the only good
+                // move; the cutoff is then confirmed by a reduced search
+                // which does not pass.
+                if (nonPawnMaterial(position.getSideToMove()) >= NULL_MOVE_VERIFICATION_MATERIAL) {
+                    return beta;
+                }
+                int verification = negamax(depth - 1 - reduction, ply, beta - 1, beta, true);
+                if (stopped) {
+                    return 0;
+                }
+                if (verification >= beta) {
+                    return beta;
+                }
+            }
+        }
+
+        int[] moves = moveLists[ply];
+        int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+        if (moveCount == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        ordering.scoreMoves(position, moves, moveCount, hashMove, ply);
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NONE;
+        int[] quiets = quietLists[ply];
+        int quietCount = 0;
+        for (int index = 0; index < moveCount; index++) {
+            int move = ordering.pickMove(moves, moveCount, index, ply);
+            boolean quiet = !MoveOrdering.isTactical(position, move);
+            makeMove(move);
+            int score;
+            if (index == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, false);
+            } else {
+                // Quiet moves ordered late, which neither escape from nor
+                // give check, are first searched at reduced depth. The rest
+                // go straight to the full depth search.
+                score = alpha + 1;
+                if (options.isLateMoveReductions() && quiet && !inCheck && (depth >= REDUCTION_MIN_DEPTH)
+                        && (index >= FULL_DEPTH_MOVES) && !position.isInCheck()) {
+                    int reduction = Math.min(REDUCTIONS[depth][index], depth - 2);
+                    score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, false);
+                }
+                if (score > alpha) {
+                    if (options.isPrincipalVariationSearch()) {
+                        score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, false);
+                        if ((score > alpha) && (score < beta)) {
+                            score = -negamax(depth - 1, ply + 1, -beta, -alpha, false);
+                        }
+                    } else {
+                        score = -negamax(depth - 1, ply + 1, -beta, -alpha, false);
+                    }
+                }
+            }
+            unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        betaCutoffs++;
+                        if (index == 0) {
+                            firstMoveCutoffs++;
+                        }
+                        if (quiet) {
+                            ordering.recordCutoff(position, move, ply, depth, quiets, quietCount);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (quiet) {
+                quiets[quietCount++] = move;
+            }
+        }
+
+        int bound = (bestScore >= beta) ? TranspositionTable.LOWER_BOUND
+                : (bestScore > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        transpositionTable.store(key, (bound == TranspositionTable.UPPER_BOUND) ? Move.NONE : bestMove,
+                bestScore, depth, bound, ply);
+        return bestScore;
+    }
+
+    //
+    // Searches the captures and promotions of the position until it is
+    // quiet, so that the evaluation is never taken in the middle of an
+    // exchange. The side to move may stand pat on the evaluation instead,
+    // unless in check, where every evasion is searched. Captures which
+    // lose material according to the static exchange are not searched.
+    //
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        quiescenceNodes++;
+        if ((++nodes % LIMITS_CHECK_INTERVAL) == 0) {
+            checkLimits();
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (ply >= MAX_PLY - 1) {
+            return evaluate();
+        }
+
+        boolean inCheck = position.isInCheck();
+        int bestScore = -INFINITY;
+        if (!inCheck) {
+            bestScore = evaluate();
+            if (bestScore >= beta) {
+                return bestScore;
+            }
+            alpha = Math.max(alpha, bestScore);
+        }
+
+        int[] moves = moveLists[ply];
+        int moveCount = inCheck
+                ? MoveGenerator.generateLegalMoves(position, moves)
+                : MoveGenerator.generateTacticalMoves(position, moves);
+        if (inCheck && (moveCount == 0)) {
+            return -MATE + ply;
+        }
+        ordering.scoreMoves(position, moves, moveCount, Move.NONE, ply);
+
+        for (int index = 0; index < moveCount; index++) {
+            int move = ordering.pickMove(moves, moveCount, index, ply);
+            if (!inCheck && ((Move.isPromotion(move) && (Move.promotionType(move) != Position.QUEEN))
+                    || (staticExchange.evaluate(position, move) < 0))) {
+                continue;
+            }
+
+            makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    //
+    // Makes the move on the position, letting the evaluator follow it.
+    //
+    private void makeMove(int move) {
+        evaluator.makeMove(position, move);
+        position.makeMove(move);
+    }
+
+    private void unmakeMove() {
+        position.unmakeMove();
+        evaluator.unmakeMove();
+    }
+
+    //
+    // Switches to the evaluator asked for by the options, which may have
+    // changed since the last search.
+    //
+    private void selectEvaluator() {
+        NnueNetwork network = options.getNetwork();
+        if (network == null) {
+            if (evaluator instanceof NnueEvaluator) {
+                evaluator = new Evaluator();
+            }
+        } else if (!(evaluator instanceof NnueEvaluator) || (((NnueEvaluator)evaluator).getNetwork() != network)) {
+            evaluator = new NnueEvaluator(network);
+        }
+    }
+
+    //
+    // Retrieves the material of the pieces of a colour other than pawns.
+    //
+    private int nonPawnMaterial(int color) {
+        return position.getMaterial(color)
+                - position.getPieceCount(color, Position.PAWN) * Position.MATERIAL_VALUES[Position.PAWN];
+    }
+
+    //
+    // Scores the position from the point of view of the side to move.
+    //
+    private int evaluate() {
+        return evaluator.evaluate(position);
+    }
+
+    //
+    // Stores the move followed by the variation of the next ply.
+    //
+    private void updatePrincipalVariation(int ply, int move) {
+        pvTable[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - (ply + 1));
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private void checkLimits() {
+        if ((nodes >= limits.getMaxNodes()) || isPastDeadline(limits.getHardTimeMillis())) {
+            stopped = true;
+        }
+    }
+
+    //
+    // Indicates whether or not the time since the start of the search has
+    // run out. Time never runs out while pondering.
+    //
+    private boolean isPastDeadline(long millis) {
+        return !limits.isPondering() && (millis != SearchLimits.NO_TIME_LIMIT)
+                && (System.currentTimeMillis() - startTime >= millis);
+    }
+}
@@ -0,0 +1,101 @@
+package chess.engine;
+
+// Conditions which stop a search: depth, amount of nodes and time. The
+// soft time keeps new iterations from starting, while the hard time aborts
+// the iteration being searched. Limits may be changed from another thread
+// while they are in use, which is how pondering searches are turned into
+// timed ones or cut short.
+public class SearchLimits {
+    // Value used for the absence of a time limit.
+    public static final long NO_TIME_LIMIT = Long.MAX_VALUE;
+
+    // Deepest iteration to search.
+    private int maxDepth = Search.MAX_PLY - 1;
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int value) {
+        maxDepth = Math.max(1, Math.min(value, Search.MAX_PLY - 1));
+    }
+
+    // Amount of nodes after which the search is aborted.
+    private volatile long maxNodes = Long.MAX_VALUE;
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public void setMaxNodes(long value) {
+        maxNodes = value;
+    }
+
+    // Milliseconds after which no new iteration is started.
+    private volatile long softTimeMillis = NO_TIME_LIMIT;
+
+    public long getSoftTimeMillis() {
+        return softTimeMillis;
+    }
+
+    public void setSoftTimeMillis(long value) {
+        softTimeMillis = value;
+    }
+
+    // Milliseconds after which the search is aborted.
+    private volatile long hardTimeMillis = NO_TIME_LIMIT;
+
+    public long getHardTimeMillis() {
+        return hardTimeMillis;
+    }
+
+    public void setHardTimeMillis(long value) {
+        hardTimeMillis = value;
+    }
+
+    // Set while searching on the opponent's time, during which the time
+    // limits do not apply. Once cleared, they count from the start of the
+    // search, so that the time spent pondering is not spent again.
+    private volatile boolean pondering;
+
+    public boolean isPondering() {
+        return pondering;
+    }
+
+    public void setPondering(boolean value) {
+        pondering = value;
+    }
+
+    public SearchLimits() {
+    }
+
+    //
+    // Creates a copy of the passed limits.
+    //
+    public SearchLimits(SearchLimits other) {
+        maxDepth = other.maxDepth;
+        maxNodes = other.maxNodes;
+        softTimeMillis = other.softTimeMillis;
+        hardTimeMillis = other.hardTimeMillis;
+        pondering = other.pondering;
+    }
+
+    //
+    // Creates limits searching up to a certain depth.
+    //
+    public static SearchLimits depth(int depth) {
+        SearchLimits limits = new SearchLimits();
+        limits.setMaxDepth(depth);
+        return limits;
+    }
+
+    //
+    // Creates limits with a soft and a hard time budget, in milliseconds.
+    //
+    public static SearchLimits time(long softTimeMillis, long hardTimeMillis) {
+        SearchLimits limits = new SearchLimits();
+        limits.setSoftTimeMillis(softTimeMillis);
+        limits.setHardTimeMillis(hardTimeMillis);
+        return limits;
+    }
+}
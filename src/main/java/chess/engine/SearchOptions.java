@@ -0,0 +1,87 @@
+package chess.engine;
+
+// Switches of the selective techniques of the search, so that each of them
+// can be measured against a search without it. Every one is on by default.
+public class SearchOptions {
+    // Searches every move but the first with a null window, which is only
+    // widened when the move turns out to be better.
+    private boolean principalVariationSearch = true;
+
+    public boolean isPrincipalVariationSearch() {
+        return principalVariationSearch;
+    }
+
+    public void setPrincipalVariationSearch(boolean value) {
+        principalVariationSearch = value;
+    }
+
+    // Lets the opponent move twice at reduced depth; when that still fails
+    // high, the node is cut without searching its moves.
+    private boolean nullMovePruning = true;
+
+    public boolean isNullMovePruning() {
+        return nullMovePruning;
+    }
+
+    public void setNullMovePruning(boolean value) {
+        nullMovePruning = value;
+    }
+
+    // Searches the quiet moves ordered late at reduced depth, searching
+    // them again at full depth only when they beat alpha.
+    private boolean lateMoveReductions = true;
+
+    public boolean isLateMoveReductions() {
+        return lateMoveReductions;
+    }
+
+    public void setLateMoveReductions(boolean value) {
+        lateMoveReductions = value;
+    }
+
+    // Searches the root with a window around the score of the previous
+    // iteration, widening it when the score falls outside.
+    private boolean aspirationWindows = true;
+
+    public boolean isAspirationWindows() {
+        return aspirationWindows;
+    }
+
+    public void setAspirationWindows(boolean value) {
+        aspirationWindows = value;
+    }
+
+    // Network evaluating the positions, or null for the hand-written
+    // evaluation.
+    private volatile NnueNetwork network;
+
+    public NnueNetwork getNetwork() {
+        return network;
+    }
+
+    public void setNetwork(NnueNetwork value) {
+        network = value;
+    }
+
+    //
+    // Turns off the technique passed by name: pvs, null, lmr or aspiration.
+    //
+    public void disable(String name) {
+        switch (name) {
+            case "pvs":
+                setPrincipalVariationSearch(false);
+                break;
+            case "null":
+                setNullMovePruning(false);
+                break;
+            case "lmr":
+                setLateMoveReductions(false);
+                break;
+            case "aspiration":
+                setAspirationWindows(false);
+                break;
+            default:
+                throw new IllegalArgumentException("'name' holds an invalid value: " + name);
+        }
+    }
+}
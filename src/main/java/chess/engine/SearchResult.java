@@ -0,0 +1,84 @@
+package chess.engine;
+
+import chess.gameplay.world.Move;
+
+// Outcome of the deepest iteration completed by a search.
+public class SearchResult {
+    // Move considered the best one, or Move.NONE without legal moves.
+    private final int bestMove;
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    // Score of the best move, in hundredths of a pawn from the point of
+    // view of the side to move.
+    private final int score;
+
+    public int getScore() {
+        return score;
+    }
+
+    // Depth of the iteration the result comes from.
+    private final int depth;
+
+    public int getDepth() {
+        return depth;
+    }
+
+    // Principal variation: the line expected to be played.
+    private final int[] principalVariation;
+
+    public int[] getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    // Nodes visited by the whole search.
+    private final long nodes;
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Time spent by the whole search.
+    private final long elapsedMillis;
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public SearchResult(int bestMove, int score, int depth, int[] principalVariation, long nodes,
+                        long elapsedMillis) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = principalVariation;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getNodesPerSecond() {
+        return (nodes * 1000) / Math.max(1, elapsedMillis);
+    }
+
+    //
+    // Indicates whether or not the score announces a forced mate.
+    //
+    public boolean isMateScore() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+
+    //
+    // Retrieves the principal variation in coordinate notation.
+    //
+    public String getPrincipalVariationText() {
+        StringBuilder text = new StringBuilder();
+        for (int move : principalVariation) {
+            if (text.length() > 0) {
+                text.append(' ');
+            }
+            text.append(Move.toString(move));
+        }
+        return text.toString();
+    }
+}
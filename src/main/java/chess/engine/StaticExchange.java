@@ -0,0 +1,92 @@
+package chess.engine;
+
+import chess.gameplay.world.AttackTables;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+
+// Static exchange evaluation: the material balance of the sequence of
+// captures on the target square of a move, where each side recaptures with
+// its least valuable attacker and may stop whenever going on would lose.
+// Sliders hidden behind the pieces taking part join the exchange as soon as
+// the pieces in front of them leave the square's lines. Every search owns
+// an instance, whose buffer of gains is reused from one call to the next.
+public final class StaticExchange {
+    // Values of the piece types, with the king worth more than anything it
+    // could win, so that it only captures last.
+    private static final int[] VALUES = {20000, 900, 500, 320, 330, 100};
+
+    // Order in which attackers are chosen, least valuable first.
+    private static final int[] ATTACKER_ORDER = {
+            Position.PAWN, Position.KNIGHT, Position.BISHOP, Position.ROOK, Position.QUEEN, Position.KING
+    };
+
+    // Longest possible sequence of captures on a square.
+    private static final int MAX_EXCHANGES = 32;
+
+    // Balance after each capture of the sequence being evaluated.
+    private final int[] gains = new int[MAX_EXCHANGES];
+
+    //
+    // Retrieves the material the side to move wins with the move, once
+    // every profitable recapture has been made.
+    //
+    public int evaluate(Position position, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+
+        int victim = position.getPieceAt(to);
+        long occupancy = position.getAllOccupancy() ^ (1L << from);
+        if (Move.isEnPassant(move)) {
+            gains[0] = VALUES[Position.PAWN];
+            occupancy ^= 1L << (to + ((position.getSideToMove() == Position.WHITE) ? -8 : 8));
+        } else {
+            gains[0] = (victim == Position.NO_PIECE) ? 0 : VALUES[Position.typeOf(victim)];
+        }
+
+        int onSquare = VALUES[Position.typeOf(position.getPieceAt(from))];
+        if (Move.isPromotion(move)) {
+            onSquare = VALUES[Move.promotionType(move)];
+            gains[0] += onSquare - VALUES[Position.PAWN];
+        }
+
+        int side = position.getSideToMove() ^ 1;
+        long attackers = (AttackTables.attackersOf(position, to, Position.WHITE, occupancy)
+                | AttackTables.attackersOf(position, to, Position.BLACK, occupancy)) & occupancy;
+        int depth = 0;
+        while (depth < MAX_EXCHANGES - 1) {
+            long ourAttackers = attackers & position.getOccupancy(side);
+            if (ourAttackers == 0) {
+                break;
+            }
+
+            int type = Position.KING;
+            long attacker = 0;
+            for (int candidate : ATTACKER_ORDER) {
+                attacker = ourAttackers & position.getPieces(side, candidate);
+                if (attacker != 0) {
+                    type = candidate;
+                    break;
+                }
+            }
+            // The king cannot capture onto a square which is still defended.
+            if ((type == Position.KING) && ((attackers & position.getOccupancy(side ^ 1)) != 0)) {
+                break;
+            }
+
+            depth++;
+            gains[depth] = onSquare - gains[depth - 1];
+
+            occupancy ^= Long.lowestOneBit(attacker);
+            attackers = (AttackTables.attackersOf(position, to, Position.WHITE, occupancy)
+                    | AttackTables.attackersOf(position, to, Position.BLACK, occupancy)) & occupancy;
+            onSquare = VALUES[type];
+            side ^= 1;
+        }
+
+        while (depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+            depth--;
+        }
+        return gains[0];
+    }
+}
@@ -0,0 +1,241 @@
+package chess.engine;
+
+import chess.gameplay.MatchResult;
+import chess.gameplay.MoveGenerator;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+import chess.storage.Database;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Headless engine-versus-engine games between a baseline engine and a
+// challenger, which may differ in their search options or network. Games
+// start from the lines of an opening suite followed by a few random plies,
+// so that a long tournament does not replay the same games. Each start is
+// played twice with the colours swapped, and games are played on a pool
+// of workers sized to the cores. Every worker owns its engines and plays one game at a time on
+// its own thread, so that games share nothing but the result store.
+public class Tournament {
+    // Openings in coordinate notation, played from the initial position.
+    private static final String[] OPENINGS = {
+            "e2e4 e7e5 g1f3 b8c6 f1b5",
+            "e2e4 e7e5 g1f3 b8c6 f1c4",
+            "e2e4 c7c5 g1f3 d7d6 d2d4",
+            "e2e4 c7c5 b1c3 b8c6 g2g3",
+            "e2e4 e7e6 d2d4 d7d5 b1c3",
+            "e2e4 c7c6 d2d4 d7d5 e4e5",
+            "e2e4 d7d5 e4d5 d8d5 b1c3",
+            "d2d4 d7d5 c2c4 e7e6 b1c3",
+            "d2d4 d7d5 c2c4 c7c6 g1f3",
+            "d2d4 g8f6 c2c4 g7g6 b1c3",
+            "d2d4 g8f6 c2c4 e7e6 g1f3",
+            "d2d4 f7f5 g2g3 g8f6 f1g2",
+            "c2c4 e7e5 b1c3 g8f6 g2g3",
+            "g1f3 d7d5 g2g3 g8f6 f1g2",
+            "e2e4 g7g6 d2d4 f8g7 b1c3",
+            "d2d4 g8f6 g1f3 e7e6 c1g5"
+    };
+
+    // Random plies played after the opening line, and the seed they are
+    // drawn from together with the number of the start.
+    private static final int RANDOM_PLIES = 4;
+    private static final long RANDOM_PLIES_SEED = 0x5EEDL;
+
+    // Plies after which a game is adjudicated as a draw.
+    private static final int MAX_GAME_PLIES = 400;
+
+    // Size of the table of every engine, in MB, kept small since every
+    // worker holds two of them.
+    private static final int ENGINE_MEGABYTES = 4;
+
+    // Outcomes of a game from the point of view of the challenger.
+    private static final int CHALLENGER_WIN = 0;
+    private static final int CHALLENGER_DRAW = 1;
+    private static final int CHALLENGER_LOSS = 2;
+
+    private final SearchOptions baselineOptions;
+    private final SearchOptions challengerOptions;
+    private final String baselineName;
+    private final String challengerName;
+    private final SearchLimits limits;
+
+    // Store of the results, written by one worker at a time, or null.
+    private final Database database;
+    private int nextResultId;
+
+    // Next game to be played, and statistics of the finished ones.
+    private final AtomicInteger nextGame = new AtomicInteger();
+    private final AtomicInteger[] outcomes = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+    private final AtomicLong cpuNanos = new AtomicLong();
+    private final AtomicLong plies = new AtomicLong();
+
+    public Tournament(SearchOptions baselineOptions, String baselineName, SearchOptions challengerOptions,
+                      String challengerName, SearchLimits limits, Database database) {
+        this.baselineOptions = baselineOptions;
+        this.baselineName = baselineName;
+        this.challengerOptions = challengerOptions;
+        this.challengerName = challengerName;
+        this.limits = limits;
+        this.database = database;
+        if (database != null) {
+            ArrayList<MatchResult> results = database.getMatchResults();
+            nextResultId = (results == null) ? 0 : results.size();
+        }
+    }
+
+    //
+    // Plays the games on the passed amount of workers, then prints the
+    // score of the challenger and the throughput.
+    //
+    public void run(int games, int workers) {
+        if (games < 1) {
+            throw new IllegalArgumentException("'games' holds an invalid value: " + games);
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("'workers' holds an invalid value: " + workers);
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "tournament-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ArrayList<Future<?>> futures = new ArrayList<>(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            futures.add(pool.submit(() -> playGames(games)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("A tournament game failed.", ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        int wins = outcomes[CHALLENGER_WIN].get();
+        int draws = outcomes[CHALLENGER_DRAW].get();
+        int losses = outcomes[CHALLENGER_LOSS].get();
+        int played = wins + draws + losses;
+        System.out.printf("%s vs %s: +%d =%d -%d, score %.1f%%%n", challengerName, baselineName, wins, draws,
+                losses, (wins + draws / 2.0) * 100 / Math.max(1, played));
+        System.out.printf("%d games on %d workers in %.1f s: %.1f games/min, %.1f plies/game,"
+                        + " %.1f ms CPU/game%n", played, workers, elapsed / 1e9, played * 60e9 / elapsed,
+                (double)plies.get() / Math.max(1, played), cpuNanos.get() / 1e6 / Math.max(1, played));
+    }
+
+    //
+    // Plays games on the calling worker until every game has been taken.
+    //
+    private void playGames(int games) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        LazySmpSearch baseline = new LazySmpSearch(new TranspositionTable(ENGINE_MEGABYTES), 1, baselineOptions);
+        LazySmpSearch challenger =
+                new LazySmpSearch(new TranspositionTable(ENGINE_MEGABYTES), 1, challengerOptions);
+
+        int game;
+        while ((game = nextGame.getAndIncrement()) < games) {
+            long cpuStart = threads.getCurrentThreadCpuTime();
+            // Every start is played by both engines with either colour.
+            boolean challengerWhite = (game & 1) == 1;
+            Position start = createStart(game / 2);
+            baseline.getTranspositionTable().clear();
+            challenger.getTranspositionTable().clear();
+
+            Date startedAt = new Date();
+            int resultType = playGame(start, challengerWhite ? challenger : baseline,
+                    challengerWhite ? baseline : challenger);
+            Date endedAt = new Date();
+
+            cpuNanos.addAndGet(threads.getCurrentThreadCpuTime() - cpuStart);
+            int outcome = (resultType == MatchResult.DRAW) ? CHALLENGER_DRAW
+                    : ((resultType == MatchResult.PLAYER_1_VICTORY) == challengerWhite)
+                    ? CHALLENGER_WIN : CHALLENGER_LOSS;
+            outcomes[outcome].incrementAndGet();
+            storeResult(new MatchResult(-1, challengerWhite ? challengerName : baselineName,
+                    challengerWhite ? baselineName : challengerName, resultType, startedAt, endedAt));
+        }
+    }
+
+    //
+    // Creates the start of the games with the passed number: a line of the
+    // suite followed by random plies, seeded by the number so that both
+    // games of a pair and reruns of the tournament share it.
+    //
+    private static Position createStart(int number) {
+        Position position = Position.fromFen(Position.START_FEN);
+        for (String text : OPENINGS[number % OPENINGS.length].split(" ")) {
+            int move = MoveGenerator.findLegalMove(position, text);
+            if (move == Move.NONE) {
+                throw new IllegalStateException("Illegal opening move: " + text);
+            }
+            position.makeMove(move);
+        }
+
+        Random random = new Random(RANDOM_PLIES_SEED + number);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int ply = 0; ply < RANDOM_PLIES; ply++) {
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+            if (moveCount == 0) {
+                break;
+            }
+            position.makeMove(moves[random.nextInt(moveCount)]);
+        }
+        return position;
+    }
+
+    //
+    // Plays a game from a copy of the start, returning its result type,
+    // where the first player is white.
+    //
+    private int playGame(Position start, LazySmpSearch white, LazySmpSearch black) {
+        Position position = new Position(start);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int gamePlies = 0;
+        while (true) {
+            if (MoveGenerator.generateLegalMoves(position, moves) == 0) {
+                plies.addAndGet(gamePlies);
+                if (!position.isInCheck()) {
+                    return MatchResult.DRAW;
+                }
+                // The side to move has been mated.
+                return (position.getSideToMove() == Position.WHITE)
+                        ? MatchResult.PLAYER_2_VICTORY : MatchResult.PLAYER_1_VICTORY;
+            }
+            if (position.isDrawnByRules() || (gamePlies >= MAX_GAME_PLIES)) {
+                plies.addAndGet(gamePlies);
+                return MatchResult.DRAW;
+            }
+
+            LazySmpSearch engine = (position.getSideToMove() == Position.WHITE) ? white : black;
+            position.makeMove(engine.search(position, new SearchLimits(limits)).getBestMove());
+            gamePlies++;
+        }
+    }
+
+    //
+    // Writes a result to the store, numbering it after the stored ones.
+    //
+    private synchronized void storeResult(MatchResult result) {
+        if (database == null) {
+            return;
+        }
+        result.setID(nextResultId++);
+        database.insertMatchResult(result);
+    }
+}
@@ -0,0 +1,217 @@
+package chess.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Table of search results indexed by the Zobrist key of the position. The
+// slots live in direct buffers, outside of the heap, so that even tables
+// of several gigabytes are invisible to the garbage collector.
+//
+// Each slot takes 16 bytes: the key xor'ed with the data, followed by the
+// data. Both words are written without locks, so that every search thread
+// can share the table; a slot torn by two concurrent writers no longer
+// decodes to its key, and is simply read as a miss.
+//
+// Data packing:
+//   bits 0-16  best move
+//   bits 17-18 bound (never 0, so that data of a stored entry is never 0)
+//   bits 19-26 depth
+//   bits 27-34 age of the search which stored it
+//   bits 48-63 score
+public class TranspositionTable {
+    // Bounds the stored score represents.
+    public static final int UPPER_BOUND = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int EXACT = 3;
+
+    // Value probes return when the position is not stored.
+    public static final long MISS = 0;
+
+    // Size used unless configured otherwise, in MB.
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    // Bytes taken by a single slot.
+    private static final int SLOT_BYTES = 16;
+
+    // Slots held by a single buffer, which cannot exceed 2 GB.
+    private static final int CHUNK_SLOTS_SHIFT = 26;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SLOTS_SHIFT;
+
+    // Slots checked when estimating how full the table is.
+    private static final int HASHFULL_SAMPLE = 1000;
+
+    // Opaque accesses are atomic for aligned words, which is all the
+    // xor'ed key needs to detect torn slots.
+    private static final VarHandle WORDS =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    // Buffers holding the slots.
+    private ByteBuffer[] chunks;
+
+    // Mask selecting the slot of a key.
+    private long slotMask;
+
+    // Age of the current search, which lets entries of older searches be
+    // replaced first.
+    private volatile int age;
+
+    public TranspositionTable() {
+        this(DEFAULT_MEGABYTES);
+    }
+
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    //
+    // Reallocates the table with the largest power of two of slots which
+    // fits in the passed MB, discarding every entry.
+    //
+    public void resize(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("'megabytes' holds an invalid value: " + megabytes);
+        }
+
+        long slots = Long.highestOneBit(megabytes * (1024L * 1024L) / SLOT_BYTES);
+        int chunkSlots = (int)Math.min(slots, CHUNK_SLOTS);
+        chunks = new ByteBuffer[(int)(slots / chunkSlots)];
+        for (int index = 0; index < chunks.length; index++) {
+            chunks[index] = ByteBuffer.allocateDirect(chunkSlots * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        }
+        slotMask = slots - 1;
+    }
+
+    //
+    // Retrieves the size of the table, in MB.
+    //
+    public int getMegabytes() {
+        return (int)((slotMask + 1) * SLOT_BYTES / (1024L * 1024L));
+    }
+
+    //
+    // Removes every entry.
+    //
+    public void clear() {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += Long.BYTES) {
+                WORDS.setOpaque(chunk, offset, 0L);
+            }
+        }
+    }
+
+    //
+    // Marks the start of a new search, so that the entries stored by the
+    // previous ones are preferred for replacement. It must be called once
+    // per search, before any of its threads starts.
+    //
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    //
+    // Retrieves the data stored for the key, or MISS.
+    //
+    public long probe(long key) {
+        long slot = key & slotMask;
+        ByteBuffer chunk = chunks[(int)(slot >>> CHUNK_SLOTS_SHIFT)];
+        int offset = (int)(slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+
+        long data = (long)WORDS.getOpaque(chunk, offset + Long.BYTES);
+        long checked = (long)WORDS.getOpaque(chunk, offset);
+        return ((checked ^ data) == key) ? data : MISS;
+    }
+
+    //
+    // Stores the result of searching the position with the key. The slot is
+    // overwritten unless it holds a deeper result of the current search for
+    // another position. Mate scores are stored relative to the position
+    // rather than to the root, see scoreToTable.
+    //
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        long slot = key & slotMask;
+        ByteBuffer chunk = chunks[(int)(slot >>> CHUNK_SLOTS_SHIFT)];
+        int offset = (int)(slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+
+        long oldData = (long)WORDS.getOpaque(chunk, offset + Long.BYTES);
+        long oldKey = (long)WORDS.getOpaque(chunk, offset) ^ oldData;
+        int currentAge = age;
+        if ((oldData != MISS) && (oldKey != key) && (ageOf(oldData) == currentAge)
+                && (depthOf(oldData) > depth) && (bound != EXACT)) {
+            return;
+        }
+
+        // The move of the previous entry is kept when none is known now.
+        if ((move == 0) && (oldKey == key)) {
+            move = moveOf(oldData);
+        }
+
+        long data = move
+                | ((long)bound << 17)
+                | ((long)Math.max(0, Math.min(depth, 0xFF)) << 19)
+                | ((long)currentAge << 27)
+                | ((long)scoreToTable(score, ply) << 48);
+        WORDS.setOpaque(chunk, offset, key ^ data);
+        WORDS.setOpaque(chunk, offset + Long.BYTES, data);
+    }
+
+    //
+    // Estimates the per mille of slots used by the current search.
+    //
+    public int getHashfull() {
+        int used = 0;
+        int sample = (int)Math.min(HASHFULL_SAMPLE, slotMask + 1);
+        for (int slot = 0; slot < sample; slot++) {
+            long data = (long)WORDS.getOpaque(chunks[0], slot * SLOT_BYTES + Long.BYTES);
+            if ((data != MISS) && (ageOf(data) == age)) {
+                used++;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int moveOf(long data) {
+        return (int)(data & 0x1FFFF);
+    }
+
+    public static int boundOf(long data) {
+        return (int)((data >>> 17) & 0x3);
+    }
+
+    public static int depthOf(long data) {
+        return (int)((data >>> 19) & 0xFF);
+    }
+
+    private static int ageOf(long data) {
+        return (int)((data >>> 27) & 0xFF);
+    }
+
+    //
+    // Retrieves the stored score, relative to the root at the passed ply.
+    //
+    public static int scoreOf(long data, int ply) {
+        int score = (int)(data >> 48);
+        if (score >= Search.MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    //
+    // Converts a mate score, counted from the root, into one counted from
+    // the position, which stays valid wherever the position is reached.
+    //
+    private static int scoreToTable(int score, int ply) {
+        if (score >= Search.MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -Search.MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+}
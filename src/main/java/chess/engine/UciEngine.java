@@ -0,0 +1,370 @@
+package chess.engine;
+
+import chess.gameplay.MoveGenerator;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Engine driven through the Universal Chess Interface: commands are read
+// line by line from a stream and answered on another one, so that GUIs,
+// tournament managers and scripts can play against the engine headlessly.
+//
+// Commands are read on the calling thread while searches run on a thread
+// of their own, so that stop and ponderhit are handled during a search.
+// Both reach the search through its shared limits.
+public class UciEngine {
+    // Name and author announced to the GUI.
+    private static final String NAME = "Swing Chess";
+    private static final String AUTHOR = "Gabriel";
+
+    // Bounds of the options offered.
+    private static final int MAX_HASH_MEGABYTES = 65536;
+    private static final int MAX_THREADS = 256;
+
+    // Moves the remaining time is split into when the GUI does not tell.
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+
+    // Milliseconds kept on the clock for the communication delays.
+    private static final long MOVE_OVERHEAD_MILLIS = 50;
+
+    private final BufferedReader input;
+    private final PrintStream output;
+
+    private final TranspositionTable transpositionTable = new TranspositionTable();
+    private final LazySmpSearch search = new LazySmpSearch(transpositionTable, 1);
+
+    // Thread running the searches.
+    private final ExecutorService searchThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Position set by the last position command.
+    private Position position = Position.fromFen(Position.START_FEN);
+
+    // Limits and outcome of the running search, or of the last one. An
+    // infinite or pondering search holds its best move back until stopped.
+    private SearchLimits limits;
+    private Future<?> running;
+    private boolean holdingBestMove;
+
+    public UciEngine(InputStream input, PrintStream output) {
+        this.input = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.output = output;
+        search.setIterationListener(this::sendInfo);
+    }
+
+    //
+    // Handles commands until quit is received or the input ends.
+    //
+    public void run() throws IOException {
+        String line;
+        while ((line = input.readLine()) != null) {
+            String[] tokens = line.trim().split("\\s+");
+            if (tokens[0].equals("quit")) {
+                break;
+            }
+            handleCommand(tokens);
+        }
+
+        stopSearch();
+        waitForSearch();
+        search.shutdown();
+        searchThread.shutdownNow();
+    }
+
+    private void handleCommand(String[] tokens) {
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name Hash type spin default " + TranspositionTable.DEFAULT_MEGABYTES
+                        + " min 1 max " + MAX_HASH_MEGABYTES);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name Ponder type check default false");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                waitForSearch();
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                waitForSearch();
+                transpositionTable.clear();
+                break;
+            case "position":
+                waitForSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                waitForSearch();
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "":
+                break;
+            default:
+                send("info string unknown command " + tokens[0]);
+        }
+    }
+
+    //
+    // Handles "setoption name <name> value <value>".
+    //
+    private void setOption(String[] tokens) {
+        String name = valueOf(tokens, "name", "value");
+        String value = valueOf(tokens, "value", null);
+        try {
+            if (name.equalsIgnoreCase("Hash")) {
+                transpositionTable.resize(Math.min(Integer.parseInt(value), MAX_HASH_MEGABYTES));
+            } else if (name.equalsIgnoreCase("Threads")) {
+                search.setThreads(Math.min(Integer.parseInt(value), MAX_THREADS));
+            } else if (!name.equalsIgnoreCase("Ponder")) {
+                send("info string unknown option " + name);
+            }
+        } catch (IllegalArgumentException ex) {
+            send("info string invalid value for " + name + ": " + value);
+        }
+    }
+
+    //
+    // Handles "position (startpos | fen <fen>) [moves <move>...]".
+    //
+    private void setPosition(String[] tokens) {
+        int movesIndex = indexOf(tokens, "moves");
+        int end = (movesIndex < 0) ? tokens.length : movesIndex;
+        Position newPosition;
+        try {
+            newPosition = (tokens.length > 1) && tokens[1].equals("fen")
+                    ? Position.fromFen(String.join(" ", Arrays.copyOfRange(tokens, 2, end)))
+                    : Position.fromFen(Position.START_FEN);
+        } catch (IllegalArgumentException ex) {
+            send("info string invalid position: " + ex.getMessage());
+            return;
+        }
+
+        for (int index = end + 1; index < tokens.length; index++) {
+            int move = MoveGenerator.findLegalMove(newPosition, tokens[index]);
+            if (move == Move.NONE) {
+                send("info string illegal move " + tokens[index]);
+                break;
+            }
+            newPosition.makeMove(move);
+        }
+        position = newPosition;
+    }
+
+    //
+    // Handles "go" with depth, nodes, movetime, clocks, infinite and ponder,
+    // starting the search on its thread.
+    //
+    private void go(String[] tokens) {
+        SearchLimits goLimits = new SearchLimits();
+        boolean infinite = false;
+        long time = SearchLimits.NO_TIME_LIMIT;
+        long increment = 0;
+        int movesToGo = DEFAULT_MOVES_TO_GO;
+        boolean white = position.getSideToMove() == Position.WHITE;
+
+        try {
+            for (int index = 1; index < tokens.length; index++) {
+                String value = (index + 1 < tokens.length) ? tokens[index + 1] : "";
+                switch (tokens[index]) {
+                    case "depth":
+                        goLimits.setMaxDepth(Integer.parseInt(value));
+                        break;
+                    case "nodes":
+                        goLimits.setMaxNodes(Long.parseLong(value));
+                        break;
+                    case "movetime":
+                        goLimits.setSoftTimeMillis(Math.max(1, Long.parseLong(value) - MOVE_OVERHEAD_MILLIS));
+                        goLimits.setHardTimeMillis(goLimits.getSoftTimeMillis());
+                        break;
+                    case "wtime":
+                    case "btime":
+                        if (tokens[index].equals(white ? "wtime" : "btime")) {
+                            time = Long.parseLong(value);
+                        }
+                        break;
+                    case "winc":
+                    case "binc":
+                        if (tokens[index].equals(white ? "winc" : "binc")) {
+                            increment = Long.parseLong(value);
+                        }
+                        break;
+                    case "movestogo":
+                        movesToGo = Math.max(1, Integer.parseInt(value));
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    case "ponder":
+                        goLimits.setPondering(true);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            send("info string invalid go command: " + ex.getMessage());
+            return;
+        }
+
+        if (time != SearchLimits.NO_TIME_LIMIT) {
+            allocateTime(goLimits, time, increment, movesToGo);
+        }
+
+        synchronized (this) {
+            limits = goLimits;
+            holdingBestMove = infinite || goLimits.isPondering();
+        }
+        Position root = new Position(position);
+        running = searchThread.submit(() -> runSearch(root, goLimits));
+    }
+
+    //
+    // Budgets the time of a move from the clock. Its share is an even part
+    // of the time left for the moves to go plus most of the increment. No
+    // iteration starts past half of the share, since it would hardly
+    // finish, and the search is aborted at four times the share, never
+    // past what is left on the clock.
+    //
+    private static void allocateTime(SearchLimits limits, long time, long increment, int movesToGo) {
+        long available = Math.max(1, time - MOVE_OVERHEAD_MILLIS);
+        long share = Math.min(available, available / movesToGo + increment * 3 / 4);
+        limits.setSoftTimeMillis(Math.max(1, share / 2));
+        limits.setHardTimeMillis(Math.max(1, Math.min(available, share * 4)));
+    }
+
+    //
+    // Searches on the search thread, then sends the best move once the GUI
+    // may receive it.
+    //
+    private void runSearch(Position root, SearchLimits searchLimits) {
+        SearchResult result = search.search(root, searchLimits);
+        synchronized (this) {
+            while (holdingBestMove && (limits == searchLimits)) {
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        int[] variation = result.getPrincipalVariation();
+        if (result.getBestMove() == Move.NONE) {
+            send("bestmove 0000");
+            return;
+        }
+        send("bestmove " + Move.toString(result.getBestMove())
+                + ((variation.length > 1) ? " ponder " + Move.toString(variation[1]) : ""));
+    }
+
+    //
+    // Aborts the running search, which then sends its best move.
+    //
+    private synchronized void stopSearch() {
+        if (limits != null) {
+            limits.setPondering(false);
+            limits.setMaxNodes(0);
+        }
+        holdingBestMove = false;
+        notifyAll();
+    }
+
+    //
+    // Turns the pondering search into a timed one, counted from its start.
+    //
+    private synchronized void ponderHit() {
+        if (limits != null) {
+            limits.setPondering(false);
+        }
+        holdingBestMove = false;
+        notifyAll();
+    }
+
+    //
+    // Waits for the running search, if any, to send its best move.
+    //
+    private void waitForSearch() {
+        if (running == null) {
+            return;
+        }
+
+        try {
+            running.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("The search failed.", ex.getCause());
+        }
+        running = null;
+    }
+
+    //
+    // Sends the progress of an iteration.
+    //
+    private void sendInfo(SearchResult result) {
+        int score = result.getScore();
+        String scoreText = result.isMateScore()
+                ? "mate " + ((score > 0) ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2)
+                : "cp " + score;
+        send(String.format("info depth %d score %s nodes %d nps %d hashfull %d time %d pv %s", result.getDepth(),
+                scoreText, result.getNodes(), result.getNodesPerSecond(), transpositionTable.getHashfull(),
+                result.getElapsedMillis(), result.getPrincipalVariationText()));
+    }
+
+    private void send(String line) {
+        synchronized (output) {
+            output.println(line);
+            output.flush();
+        }
+    }
+
+    //
+    // Joins the tokens following the key up to the end one, or to the end
+    // of the command when it is null or missing.
+    //
+    private static String valueOf(String[] tokens, String key, String endKey) {
+        int start = indexOf(tokens, key);
+        if (start < 0) {
+            return "";
+        }
+        int end = (endKey == null) ? -1 : indexOf(tokens, endKey);
+        if (end < start) {
+            end = tokens.length;
+        }
+        return String.join(" ", Arrays.copyOfRange(tokens, start + 1, end));
+    }
+
+    private static int indexOf(String[] tokens, String token) {
+        for (int index = 0; index < tokens.length; index++) {
+            if (tokens[index].equals(token)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,77 @@
+package chess.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// NNUE arithmetic on the widest SIMD registers of the processor. Only
+// loaded through NnueKernels.create, and only when the Vector API module
+// is present, since linking this class fails otherwise.
+class VectorNnueKernels extends NnueKernels {
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+
+    // Integers fitting in half a register of shorts, which the clipped
+    // values are widened into before multiplying.
+    private static final VectorSpecies<Integer> INTS =
+            VectorSpecies.of(int.class, SHORTS.vectorShape());
+
+    private static final ShortVector ZERO = ShortVector.zero(SHORTS);
+    private static final ShortVector QA = ShortVector.broadcast(SHORTS, (short)NnueNetwork.QA);
+
+    @Override
+    String getName() {
+        return "vector (" + SHORTS.length() + " x 16 bits)";
+    }
+
+    @Override
+    void add(short[] accumulator, int offset, short[] weights, int column, int size) {
+        int bound = SHORTS.loopBound(size);
+        int index = 0;
+        for (; index < bound; index += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, offset + index)
+                    .add(ShortVector.fromArray(SHORTS, weights, column + index))
+                    .intoArray(accumulator, offset + index);
+        }
+        for (; index < size; index++) {
+            accumulator[offset + index] += weights[column + index];
+        }
+    }
+
+    @Override
+    void subtract(short[] accumulator, int offset, short[] weights, int column, int size) {
+        int bound = SHORTS.loopBound(size);
+        int index = 0;
+        for (; index < bound; index += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, accumulator, offset + index)
+                    .sub(ShortVector.fromArray(SHORTS, weights, column + index))
+                    .intoArray(accumulator, offset + index);
+        }
+        for (; index < size; index++) {
+            accumulator[offset + index] -= weights[column + index];
+        }
+    }
+
+    @Override
+    int clippedDot(short[] accumulator, int offset, short[] weights, int column, int size) {
+        int bound = SHORTS.loopBound(size);
+        IntVector sums = IntVector.zero(INTS);
+        int index = 0;
+        for (; index < bound; index += SHORTS.length()) {
+            ShortVector clipped = ShortVector.fromArray(SHORTS, accumulator, offset + index).max(ZERO).min(QA);
+            ShortVector weight = ShortVector.fromArray(SHORTS, weights, column + index);
+            // The products need 32 bits, so each half is widened apart.
+            for (int part = 0; part < 2; part++) {
+                IntVector values = (IntVector)clipped.convertShape(VectorOperators.S2I, INTS, part);
+                IntVector factors = (IntVector)weight.convertShape(VectorOperators.S2I, INTS, part);
+                sums = sums.add(values.mul(factors));
+            }
+        }
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; index < size; index++) {
+            int value = Math.max(0, Math.min(accumulator[offset + index], NnueNetwork.QA));
+            sum += value * weights[column + index];
+        }
+        return sum;
+    }
+}
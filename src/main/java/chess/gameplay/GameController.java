@@ -1,8 +1,12 @@
 package chess.gameplay;
 
+import chess.engine.ComputerPlayer;
+import chess.engine.SearchResult;
 import chess.gameplay.world.Board;
 import chess.gameplay.world.ChessPiece;
+import chess.gameplay.world.Move;
 import chess.gameplay.world.Player;
+import chess.gameplay.world.Position;
 
 // Communicating interface between the presentation layer and the
 // business layer.
@@ -11,6 +15,8 @@ public abstract class GameController {
     private PlayerBoardInteraction playerInteraction;
     // Instance of match being played right now.
     private Match onGoingMatch;
+    // Engine playing for each player, indexed by player id (null for humans).
+    private final ComputerPlayer[] computerPlayers = new ComputerPlayer[Player.PLAYERS_AMOUNT];
 
     // Default empty constructor.
     public GameController() {
@@ -32,6 +38,18 @@ public abstract class GameController {
         onGoingMatch = value;
     }
 
+    //
+    // Makes the engine play for the player with the passed id, or a human
+    // if the computer player is null.
+    //
+    public void setComputerPlayer(int playerId, ComputerPlayer computerPlayer) {
+        computerPlayers[playerId] = computerPlayer;
+    }
+
+    public ComputerPlayer getComputerPlayer(Player player) {
+        return computerPlayers[player.getId()];
+    }
+
     //
     // Called when the match has been started.
     //
@@ -54,7 +72,34 @@ public abstract class GameController {
     public void onPlayerTurn(Player player) {
         getPlayerInteraction().setSourcePlayer(player);
         // Calls for the presentation dependent handling of the turn.
-        handlePlayerTurn(player);
+        if (getComputerPlayer(player) != null) {
+            handleComputerTurn(player);
+        } else {
+            handlePlayerTurn(player);
+        }
+    }
+
+    //
+    // Lets the engine choose and apply the move of a computer player. The
+    // search runs on the calling thread unless overridden.
+    //
+    public void handleComputerTurn(Player player) {
+        SearchResult result = getComputerPlayer(player).think(getOnGoingMatch().getGameBoard().getPosition());
+        applyComputerMove(player, result.getBestMove());
+    }
+
+    //
+    // Applies a move chosen by the engine for the player.
+    //
+    public void applyComputerMove(Player player, int move) {
+        Board gameBoard = getOnGoingMatch().getGameBoard();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = gameBoard.getCell(Position.columnOf(from), Position.rowOf(from)).getPiece();
+        ChessPiece.PieceType promotionType = Move.isPromotion(move)
+                ? ChessPiece.PieceType.values()[Move.promotionType(move)] : ChessPiece.PieceType.QUEEN;
+        getOnGoingMatch().handleMovement(new PieceDisplacement(piece.getId(), player,
+                Position.columnOf(to), Position.rowOf(to), promotionType));
     }
 
     //
@@ -62,6 +107,21 @@ public abstract class GameController {
     //
     public abstract void handlePlayerTurn(Player player);
 
+    //
+    // Called once a movement has been applied to the board, before the
+    // match looks for its end, with the move it was encoded into. Nothing
+    // is done unless overridden.
+    //
+    public void onMovementApplied(Player player, int move) {
+    }
+
+    //
+    // Called when the match has been aborted by the passed failure of the
+    // program, without a result. Nothing is done unless overridden.
+    //
+    public void onMatchAborted(RuntimeException cause) {
+    }
+
     //
     // Calls for the presentation dependent handling of a player's victory.
     //
@@ -74,6 +134,18 @@ public abstract class GameController {
     //
     public abstract void handleVictory(Player winner);
 
+    //
+    // Calls for the presentation dependent handling of a draw.
+    //
+    public void onDraw() {
+        handleDraw();
+    }
+
+    //
+    // Handles the end of a match without a winner.
+    //
+    public abstract void handleDraw();
+
     //
     // Applies the current player interaction to the game.
     //
@@ -2,16 +2,36 @@ package chess.gameplay;
 
 import chess.gameplay.world.Board;
 import chess.gameplay.world.ChessPiece;
+import chess.gameplay.world.Move;
 import chess.gameplay.world.Player;
+import chess.gameplay.world.Position;
 
 import java.util.Calendar;
 import java.util.Date;
 
 // Abstraction of an instance of a chess match.
+//
+// The turns are driven by an explicit state machine rather than by
+// callbacks calling each other: a movement is only recorded when it is
+// submitted, and applied by the next step. The controller may therefore
+// submit the movement from within onPlayerTurn, as computer players do,
+// without the stack growing with every ply.
 public class Match   
 {
-    // Defines the amount of players for a match.
-    public static final int PLAYERS_AMOUNT = 2;
+    // States the turns of a match go through.
+    public enum TurnState
+    {
+        // The match has not been started yet.
+        NOT_STARTED,
+        // The controller must be told whose turn it is.
+        TURN_STARTING,
+        // The player on turn has to submit a movement.
+        WAITING_FOR_MOVEMENT,
+        // A movement has been submitted and is going to be applied.
+        MOVEMENT_SUBMITTED,
+        // The match has ended, there are no more turns.
+        FINISHED
+    }
 
     // Instance of MatchWrapper, in order to communicate events.
     private final MatchWrapper wrapper;
@@ -20,8 +40,20 @@ public class Match
     // and the business layer.
     private final GameController controller;
 
-    // Keeps track whether or not the match has finished.
-    private boolean finished = false;
+    // State of the turn being played.
+    private TurnState state = TurnState.NOT_STARTED;
+    public TurnState getState() {
+        return state;
+    }
+
+    // Movement submitted by the player on turn, until it is applied.
+    private PieceDisplacement pendingMovement;
+
+    // Set while a step is running, which keeps steps from nesting.
+    private boolean stepping = false;
+
+    // Set once the match has been aborted.
+    private boolean aborted = false;
 
     // Instance of Player representing the first player.
     private final Player player1;
@@ -79,7 +111,7 @@ public class Match
     // Spawns the initial chess pieces onto the chess board.
     //
     private void spawnChessPieces()  {
-        for (int playerId = 0;playerId < PLAYERS_AMOUNT;playerId++)
+        for (int playerId = 0;playerId < Player.PLAYERS_AMOUNT;playerId++)
         {
             // Spawn chess pieces for each player.
             // We retrieve the desired Player instance by making usage
@@ -96,15 +128,21 @@ public class Match
                 ChessPiece pawn = new ChessPiece(column,player, ChessPiece.PieceType.PAWN,column,pawnsRow);
                 // Adds the pawn piece to the game board.
                 getGameBoard().addPieceToCell(pawn,column,pawnsRow);
-                // Number of the piece on the king's row - (0 or 1).
-                int pieceNumber = column / 4;
+                // Type of the piece on the king's row.
+                ChessPiece.PieceType type = ChessPiece.getInitialPieceTypeForColumnOnKingsRow(column);
+                // Number of the piece on the king's row - (0 or 1), the king
+                // and the queen being always number 0.
+                int pieceNumber = ((type == ChessPiece.PieceType.KING) || (type == ChessPiece.PieceType.QUEEN))
+                        ? 0 : column / 4;
                 // Piece on the king's row.
-                ChessPiece kingsRowPiece = new ChessPiece(pieceNumber,player,
-                        ChessPiece.getInitialPieceTypeForColumnOnKingsRow(column),column,kingRow);
+                ChessPiece kingsRowPiece = new ChessPiece(pieceNumber,player,type,column,kingRow);
                 // Adds the piece to the game board.
                 getGameBoard().addPieceToCell(kingsRowPiece,column,kingRow);
             }
         }
+        // Every king and rook stands on its initial cell, so both players
+        // may castle to either side.
+        getGameBoard().getPosition().setCastlingRights(Position.ALL_CASTLING);
     }
 
     //
@@ -121,25 +159,30 @@ public class Match
             throw new IllegalStateException("Could not find king piece of the inactive player.");
         }
 
-        return (!PieceDisplacement.hasKingAnyMovementsLeft(board, piece));
+        return (PieceDisplacement.evaluatePosition(board) == PieceDisplacement.PositionStatus.CHECKMATE);
     }
 
-    // If king has not any movements left, then there is a checkmate.
     //
     // Starts the match by spawning the chess pieces, and assigning
-    // the turn to a player.
+    // the turn to a player. The turns are then run until a movement is
+    // awaited, see advance.
     //
-    public void start()  {
+    public TurnState start()  {
+        if (state != TurnState.NOT_STARTED)
+        {
+            throw new IllegalStateException("The match has already been started.");
+        }
         // Initializes the instance of match result.
         initializeMatchResult();
         // Spawn the chess pieces on the board.
         spawnChessPieces();
         // Set the player whose turn it's occuring now.
         setTurnOfPlayer(getPlayer1());
+        state = TurnState.TURN_STARTING;
         // Inform the controller that the match has started.
         controller.onMatchStart(this);
         // Runs the logic of the turn.
-        runTurn();
+        return advance();
     }
 
     //
@@ -157,45 +200,192 @@ public class Match
     //	Checks whether or not there's a next turn.
     //
     public boolean hasNextTurn()  {
-        return !(finished);
+        return (state != TurnState.FINISHED);
     }
 
-    // If the match has not finished, then there's a next turn.
     //
-    //	Executes the following turn.
+    // Runs steps until the match waits for a movement or has finished,
+    // returning the state reached. When called from within a step, such
+    // as from a controller callback, it returns at once and the running
+    // loop carries on.
     //
-    public void runTurn()  {
-        // We cannot run the turn, if the match is finished already.
-        if (!finished)
+    public TurnState advance()  {
+        if (stepping)
         {
-            // Inform the controller in order to handle the turn.
-            controller.onPlayerTurn(turnOfPlayer);
-            // Change the player who has got the turn.
-            setTurnOfPlayer((getTurnOfPlayer() == getPlayer1()) ? getPlayer2() : getPlayer1());
+            return state;
         }
-         
+        while ((state == TurnState.TURN_STARTING) || (state == TurnState.MOVEMENT_SUBMITTED))
+        {
+            step();
+        }
+        return state;
     }
 
     //
-    //	Handles the movement requested by a player on its turn.
+    // Performs a single transition of the turn, returning the new state.
+    // Steps cannot nest: a step which makes a callback calling step again
+    // is a programming error.
     //
-    public void handleMovement(PieceDisplacement movement)  {
+    public TurnState step()  {
+        if (stepping)
+        {
+            throw new IllegalStateException("Match.step is not reentrant.");
+        }
+        stepping = true;
+        try
+        {
+            switch (state)
+            {
+                case TURN_STARTING:
+                    // Inform the controller in order to handle the turn,
+                    // which may submit the movement right away.
+                    state = TurnState.WAITING_FOR_MOVEMENT;
+                    controller.onPlayerTurn(turnOfPlayer);
+                    break;
+                case MOVEMENT_SUBMITTED:
+                    int plyCount = getGameBoard().getPosition().getPlyCount();
+                    try
+                    {
+                        applyMovement(pendingMovement);
+                    }
+                    catch (RuntimeException ex)
+                    {
+                        // Leave a defined state behind: the same turn when
+                        // the board is untouched, or an aborted match, the
+                        // controller being told, when the movement has been
+                        // applied only in part.
+                        if (state == TurnState.MOVEMENT_SUBMITTED)
+                        {
+                            if (getGameBoard().getPosition().getPlyCount() == plyCount)
+                            {
+                                state = TurnState.WAITING_FOR_MOVEMENT;
+                            }
+                            else
+                            {
+                                abort(ex);
+                            }
+                        }
+                        throw ex;
+                    }
+                    finally
+                    {
+                        pendingMovement = null;
+                    }
+                    break;
+                default:
+                    // Nothing to do until a movement is submitted or
+                    // the match is started.
+                    break;
+            }
+        }
+        finally
+        {
+            stepping = false;
+        }
+        return state;
+    }
+
+    //
+    // Records the movement of the player on turn, to be applied by the
+    // next step. Illegal movements are rejected with a
+    // RejectedMovementException, leaving the turn as it was.
+    //
+    public void submitMovement(PieceDisplacement movement)  {
+        if (state != TurnState.WAITING_FOR_MOVEMENT)
+        {
+            throw new RejectedMovementException("No movement is awaited, the turn is " + state + ".");
+        }
+        if (movement.getSourcePlayer() != turnOfPlayer)
+        {
+            throw new RejectedMovementException("'movement' holds an invalid value: it is not the turn of "
+                    + movement.getSourcePlayer().getName() + ".");
+        }
+        ChessPiece piece = getGameBoard().getChessPieceById(movement.getChessPieceId());
+        if ((piece == null) || (PieceDisplacement.findLegalMove(getGameBoard(), piece, movement.getSourcePlayer(),
+                movement.getTargetColumn(), movement.getTargetRow(), movement.getPromotionType()) == Move.NONE))
+        {
+            throw new RejectedMovementException("'movement' holds an invalid value: it is not legal.");
+        }
+        pendingMovement = movement;
+        state = TurnState.MOVEMENT_SUBMITTED;
+    }
+
+    //
+    //	Handles the movement requested by a player on its turn: submits
+    //	it and runs the turns until a movement is awaited again.
+    //
+    public TurnState handleMovement(PieceDisplacement movement)  {
+        submitMovement(movement);
+        return advance();
+    }
+
+    //
+    // Applies the movement, and either finishes the match or lets the next
+    // turn start.
+    //
+    private void applyMovement(PieceDisplacement movement)  {
         // Apply the movement to the game board.
         getGameBoard().applyMovement(movement);
+        controller.onMovementApplied(movement.getSourcePlayer(), getGameBoard().getPosition().getLastMove());
+        // Change the player who has got the turn, before the controller
+        // hears about the next one.
+        setTurnOfPlayer((getTurnOfPlayer() == getPlayer1()) ? getPlayer2() : getPlayer1());
+        // Evaluate the position once for the player who is going to move.
+        PieceDisplacement.PositionStatus status = PieceDisplacement.evaluatePosition(getGameBoard());
         // If it's checkmate then handele the victory of the player.
-        if (isCheckMate(movement.getSourcePlayer()))
+        if (status == PieceDisplacement.PositionStatus.CHECKMATE)
         {
             int resultType = getResultTypeFromWinner(movement.getSourcePlayer());
             finishMatch(resultType);
             controller.onPlayerWins(movement.getSourcePlayer());
         }
+        else if ((status == PieceDisplacement.PositionStatus.STALEMATE) ||
+                (status == PieceDisplacement.PositionStatus.INSUFFICIENT_MATERIAL) ||
+                getGameBoard().getPosition().isDrawnByRules())
+        {
+            // Nobody can win anymore, or the fifty-move or the threefold
+            // repetition rule draws the game.
+            finishMatch(MatchResult.DRAW);
+            controller.onDraw();
+        }
         else
         {
-            // Run turn in the contrary case.
-            runTurn();
+            // Start the next turn in the contrary case.
+            state = TurnState.TURN_STARTING;
         } 
     }
 
+    //
+    // Ends the match in favour of the opponent of the passed player, who
+    // leaves it, such as a remote player disconnecting.
+    //
+    public void abandon(Player player)  {
+        if ((state == TurnState.NOT_STARTED) || (state == TurnState.FINISHED))
+        {
+            throw new IllegalStateException("Only a match being played can be abandoned.");
+        }
+        Player winner = (player == getPlayer1()) ? getPlayer2() : getPlayer1();
+        pendingMovement = null;
+        finishMatch(getResultTypeFromWinner(winner));
+        controller.onPlayerWins(winner);
+    }
+
+    //
+    // Ends the match without a result, after the passed failure of the
+    // program has left it unplayable. Nothing is stored, and the controller
+    // is told through onMatchAborted.
+    //
+    public void abort(RuntimeException cause)  {
+        if (aborted)
+        {
+            return;
+        }
+        aborted = true;
+        pendingMovement = null;
+        state = TurnState.FINISHED;
+        controller.onMatchAborted(cause);
+    }
+
     //
     // Returns the type of match end.
     //
@@ -219,12 +409,12 @@ public class Match
     // Updates the match status to finished.
     //
     private void finishMatch(int resultType)  {
-        finished = true;
+        state = TurnState.FINISHED;
         // Fills the match result with the required details.
         getResult().setEndedAt(Calendar.getInstance().getTime());
         getResult().setResultType(resultType);
         // Inform the match wrapper that the match has ended.
-        wrapper.onMatchEnds();
+        wrapper.onMatchEnds(this);
     }
 
 }
@@ -0,0 +1,236 @@
+package chess.gameplay;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+// Hosts many matches at once, keyed by their id, each one with a
+// controller of its own. Results are stored through a shared MatchWrapper.
+//
+// A match never blocks a thread while waiting for a movement: its state
+// machine stops at WAITING_FOR_MOVEMENT, see Match.advance. Submitted
+// movements are queued on the match, and the match runs on a thread of the
+// executor only until the queue is empty. Every match runs on one thread at
+// a time, in submission order, so that Match itself needs no locking. The
+// runs share a pool of daemon threads sized to the cores, so that
+// thousands of slow games idle without holding a thread each.
+public class MatchRegistry {
+    // Matches being played, by id.
+    private final ConcurrentHashMap<Integer, HostedMatch> matches = new ConcurrentHashMap<>();
+
+    // Id given to the next match.
+    private final AtomicInteger nextMatchId = new AtomicInteger();
+
+    // Matches being run on a thread right now, those already ended and
+    // those aborted by a failure.
+    private final AtomicInteger runningMatches = new AtomicInteger();
+    private final AtomicLong finishedMatches = new AtomicLong();
+    private final AtomicLong abortedMatches = new AtomicLong();
+
+    // Store of the results of the ended matches.
+    private final MatchWrapper wrapper;
+
+    // Threads the matches run on.
+    private final ExecutorService executor;
+
+    public MatchRegistry(MatchWrapper wrapper) {
+        this(wrapper, createExecutor());
+    }
+
+    public MatchRegistry(MatchWrapper wrapper, ExecutorService executor) {
+        this.wrapper = wrapper;
+        this.executor = executor;
+    }
+
+    //
+    // Creates a pool of daemon threads sized to the cores.
+    //
+    public static ExecutorService createExecutor() {
+        return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "match-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //
+    // Creates and starts a match played through the controller, returning
+    // its id. The match starts on a thread of the executor.
+    //
+    public int startMatch(GameController controller, String player1Name, String player2Name) {
+        return startMatch(matchId -> controller, player1Name, player2Name);
+    }
+
+    //
+    // Creates and starts a match played through the controller made for
+    // its id, returning the id. Controllers which need the id, such as
+    // those of remote players, learn it before the match starts.
+    //
+    public int startMatch(IntFunction<GameController> controllerFactory, String player1Name, String player2Name) {
+        int matchId = nextMatchId.getAndIncrement();
+        GameController controller = controllerFactory.apply(matchId);
+        HostedMatch hosted = new HostedMatch(matchId, new Match(wrapper, controller, player1Name, player2Name),
+                controller);
+        matches.put(matchId, hosted);
+        hosted.enqueue(Match::start);
+        return matchId;
+    }
+
+    //
+    // Queues the movement on the match. Movements the match rejects, such
+    // as illegal ones or those made out of turn, are reported to the
+    // controller of the match as invalid interactions.
+    //
+    public void submitMovement(int matchId, PieceDisplacement movement) {
+        runOnMatch(matchId, match -> match.handleMovement(movement));
+    }
+
+    //
+    // Queues an action on the thread of the match, which is the only one
+    // allowed to read or change it. An action throwing a
+    // RejectedMovementException is reported to the controller as an
+    // invalid interaction. Any other failure aborts the match.
+    //
+    public void runOnMatch(int matchId, Consumer<Match> action) {
+        HostedMatch hosted = matches.get(matchId);
+        if (hosted == null) {
+            throw new IllegalArgumentException("'matchId' holds an invalid value: " + matchId);
+        }
+        hosted.enqueue(action);
+    }
+
+    //
+    // Indicates whether or not the match with the id is being played.
+    //
+    public boolean isActive(int matchId) {
+        return matches.containsKey(matchId);
+    }
+
+    //
+    // Retrieves the amount of matches being played.
+    //
+    public int getActiveMatchCount() {
+        return matches.size();
+    }
+
+    //
+    // Retrieves the amount of matches running on a thread right now. The
+    // remaining active ones are waiting for a movement.
+    //
+    public int getRunningMatchCount() {
+        return runningMatches.get();
+    }
+
+    //
+    // Retrieves the amount of active matches waiting for a movement, which
+    // hold no thread.
+    //
+    public int getWaitingMatchCount() {
+        return Math.max(0, matches.size() - runningMatches.get());
+    }
+
+    //
+    // Retrieves the amount of matches ended since the registry was created.
+    //
+    public long getFinishedMatchCount() {
+        return finishedMatches.get();
+    }
+
+    //
+    // Retrieves the amount of matches aborted by a failure of the rules,
+    // of their controller or of the store of results.
+    //
+    public long getAbortedMatchCount() {
+        return abortedMatches.get();
+    }
+
+    //
+    // Stops running the matches, abandoning those still being played.
+    //
+    public void shutdown() {
+        executor.shutdownNow();
+        matches.clear();
+    }
+
+    //
+    // Match together with the actions queued on it. A single run of drain
+    // exists at a time, which is what keeps the match on one thread.
+    //
+    private class HostedMatch {
+        private final int id;
+        private final Match match;
+        private final GameController controller;
+        private final Queue<Consumer<Match>> actions = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        HostedMatch(int id, Match match, GameController controller) {
+            this.id = id;
+            this.match = match;
+            this.controller = controller;
+        }
+
+        void enqueue(Consumer<Match> action) {
+            actions.add(action);
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        //
+        // Runs the queued actions, then lets the next action schedule a new
+        // run. An action queued while the flag was being cleared is picked
+        // up by the check at the end.
+        //
+        private void drain() {
+            runningMatches.incrementAndGet();
+            try {
+                Consumer<Match> action;
+                while ((action = actions.poll()) != null) {
+                    try {
+                        action.accept(match);
+                    } catch (RejectedMovementException ex) {
+                        controller.handleInvalidPlayerInteraction();
+                    } catch (RuntimeException ex) {
+                        abort(ex);
+                        return;
+                    }
+                }
+
+                if ((match.getState() == Match.TurnState.FINISHED) && (matches.remove(id) != null)) {
+                    finishedMatches.incrementAndGet();
+                }
+            } finally {
+                runningMatches.decrementAndGet();
+                scheduled.set(false);
+            }
+
+            if (!actions.isEmpty() && scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        //
+        // Ends and forgets the match after an unexpected failure of an
+        // action, which is a bug rather than a bad movement, dropping its
+        // queued actions. The failure is reported to the controller through
+        // onMatchAborted; should the controller fail there as well, that
+        // failure is left to the thread running the match.
+        //
+        private void abort(RuntimeException failure) {
+            matches.remove(id);
+            actions.clear();
+            try {
+                match.abort(failure);
+            } finally {
+                abortedMatches.incrementAndGet();
+            }
+        }
+    }
+}
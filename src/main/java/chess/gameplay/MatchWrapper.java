@@ -38,6 +38,18 @@ public class MatchWrapper {
         }
     }
     
+    /**
+     * Keeps the results in memory only, without a database, such as for
+     * the matches played by tests.
+     * 
+     * @param results Results stored so far.
+     */
+    MatchWrapper(ArrayList<MatchResult> results) {
+        database = null;
+        
+        this.results = results;
+    }
+    
     /**
      * Starts a new match.
      * 
@@ -53,17 +65,29 @@ public class MatchWrapper {
 
     /**
      * Called by Match, when the match ends, adding it to the database.
+     * Matches hosted by a MatchRegistry end on several threads at once,
+     * so that results are stored one at a time.
+     * 
+     * @param match Match which has just ended.
      */
-    public void onMatchEnds() {
-        MatchResult result = onGoingMatch.getResult();
+    public synchronized void onMatchEnds(Match match) {
+        MatchResult result = match.getResult();
         
         result.setID(results.size());
         
         results.add(result);
-        database.insertMatchResult(result);
+        if (database != null) {
+            database.insertMatchResult(result);
+        }
     }
     
-    public ArrayList<MatchResult> getResults() {
-        return results;
+    /**
+     * Retrieves a copy of the stored results, which matches ending later
+     * do not change.
+     * 
+     * @return Results stored so far.
+     */
+    public synchronized ArrayList<MatchResult> getResults() {
+        return new ArrayList<>(results);
     }
 }
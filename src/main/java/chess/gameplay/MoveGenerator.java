@@ -0,0 +1,300 @@
+package chess.gameplay;
+
+import chess.gameplay.world.AttackTables;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+
+// Enumerates every legal move of the side to move. Moves are written on a
+// caller-owned int[] (see Move for the packing), so that generating does
+// not allocate. Legality is ensured up-front: when in check, the moves of
+// the pieces are limited to capturing the checker or interposing, and
+// pinned pieces are limited to the line joining them to their king.
+public final class MoveGenerator
+{
+    // Length a move list must have to fit the moves of any position.
+    public static final int MAX_MOVES = 256;
+
+    // Masks of the first and last rows, where pawns promote.
+    private static final long FIRST_ROW = 0xFFL;
+    private static final long LAST_ROW = 0xFFL << 56;
+
+    private MoveGenerator() {
+    }
+
+    //
+    // Fills the list with every legal move of the side to move, returning
+    // the amount of moves written.
+    //
+    public static int generateLegalMoves(Position position, int[] moves) {
+        return generate(position, moves, false);
+    }
+
+    //
+    // Fills the list with the legal captures and promotions of the side to
+    // move, returning the amount of moves written.
+    //
+    public static int generateTacticalMoves(Position position, int[] moves) {
+        return generate(position, moves, true);
+    }
+
+    //
+    // Retrieves the legal move of the side to move written in coordinate
+    // notation, such as e2e4 or e7e8q, or Move.NONE when there is none.
+    //
+    public static int findLegalMove(Position position, String text) {
+        int[] moves = new int[MAX_MOVES];
+        int moveCount = generateLegalMoves(position, moves);
+        for (int index = 0; index < moveCount; index++)
+        {
+            if (Move.toString(moves[index]).equals(text))
+            {
+                return moves[index];
+            }
+        }
+        return Move.NONE;
+    }
+
+    private static int generate(Position position, int[] moves, boolean tacticalOnly) {
+        int us = position.getSideToMove();
+        int them = us ^ 1;
+        int king = position.getKingSquare(us);
+        long ourPieces = position.getOccupancy(us);
+        long occupancy = position.getAllOccupancy();
+        // Squares the pieces may land on, before looking at checks and pins.
+        long destinations = tacticalOnly ? position.getOccupancy(us ^ 1) : ~ourPieces;
+        int count = 0;
+
+        if (king == Position.NO_SQUARE)
+        {
+            return 0;
+        }
+
+        // The king cannot step on an attacked square. It is taken out of the
+        // occupancy so that it cannot retreat along the ray of a slider.
+        long kinglessOccupancy = occupancy & ~(1L << king);
+        long targets = AttackTables.kingAttacks(king) & destinations;
+        while (targets != 0)
+        {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            if (!AttackTables.isSquareAttacked(position, to, them, kinglessOccupancy))
+            {
+                moves[count++] = Move.create(king, to);
+            }
+        }
+
+        long checkers = AttackTables.attackersOf(position, king, them, occupancy);
+        if (Long.bitCount(checkers) > 1)
+        {
+            // Only the king can escape from a double check.
+            return count;
+        }
+
+        // Squares the other pieces must move to: anywhere when not in check,
+        // otherwise the checker or the squares between it and the king.
+        long checkMask = -1L;
+        if (checkers != 0)
+        {
+            int checker = Long.numberOfTrailingZeros(checkers);
+            checkMask = checkers | AttackTables.between(king, checker);
+        }
+        else if (!tacticalOnly)
+        {
+            count = generateCastlings(position, us, king, occupancy, moves, count);
+        }
+
+        long pinned = calculatePinnedPieces(position, us, king, occupancy);
+        long allowed = destinations & checkMask;
+
+        long knights = position.getPieces(us, Position.KNIGHT) & ~pinned;
+        while (knights != 0)
+        {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            count = addMoves(from, AttackTables.knightAttacks(from) & allowed, moves, count);
+        }
+
+        long diagonals = position.getPieces(us, Position.BISHOP) | position.getPieces(us, Position.QUEEN);
+        while (diagonals != 0)
+        {
+            int from = Long.numberOfTrailingZeros(diagonals);
+            diagonals &= diagonals - 1;
+            long pieceTargets = AttackTables.bishopAttacks(from, occupancy) & allowed;
+            count = addMoves(from, restrictToPin(pieceTargets, from, king, pinned), moves, count);
+        }
+
+        long straights = position.getPieces(us, Position.ROOK) | position.getPieces(us, Position.QUEEN);
+        while (straights != 0)
+        {
+            int from = Long.numberOfTrailingZeros(straights);
+            straights &= straights - 1;
+            long pieceTargets = AttackTables.rookAttacks(from, occupancy) & allowed;
+            count = addMoves(from, restrictToPin(pieceTargets, from, king, pinned), moves, count);
+        }
+
+        return generatePawnMoves(position, us, king, occupancy, checkMask, pinned, tacticalOnly, moves, count);
+    }
+
+    //
+    // Writes the moves of the pawns of the side to move, or only their
+    // captures and promotions.
+    //
+    private static int generatePawnMoves(Position position, int us, int king, long occupancy, long checkMask,
+                                         long pinned, boolean tacticalOnly, int[] moves, int count) {
+        int forward = (us == Position.WHITE) ? 8 : -8;
+        long startRow = (us == Position.WHITE) ? (FIRST_ROW << 8) : (LAST_ROW >>> 8);
+        long enemies = position.getOccupancy(us ^ 1);
+        int enPassant = position.getEnPassantSquare();
+
+        long pawns = position.getPieces(us, Position.PAWN);
+        while (pawns != 0)
+        {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+
+            long targets = 0;
+            int single = from + forward;
+            if ((occupancy & (1L << single)) == 0)
+            {
+                targets |= 1L << single;
+                int twice = single + forward;
+                if (((startRow & (1L << from)) != 0) && ((occupancy & (1L << twice)) == 0))
+                {
+                    targets |= 1L << twice;
+                }
+                // Pushes only count as tactical when promoting.
+                if (tacticalOnly)
+                {
+                    targets &= FIRST_ROW | LAST_ROW;
+                }
+            }
+            targets |= AttackTables.pawnAttacks(us, from) & enemies;
+            targets = restrictToPin(targets & checkMask, from, king, pinned);
+
+            while (targets != 0)
+            {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                if (((1L << to) & (FIRST_ROW | LAST_ROW)) != 0)
+                {
+                    moves[count++] = Move.createPromotion(from, to, Position.QUEEN);
+                    moves[count++] = Move.createPromotion(from, to, Position.ROOK);
+                    moves[count++] = Move.createPromotion(from, to, Position.BISHOP);
+                    moves[count++] = Move.createPromotion(from, to, Position.KNIGHT);
+                }
+                else
+                {
+                    moves[count++] = Move.create(from, to);
+                }
+            }
+
+            if ((enPassant != Position.NO_SQUARE) && ((AttackTables.pawnAttacks(us, from) & (1L << enPassant)) != 0)
+                    && isEnPassantLegal(position, us, king, from, enPassant, occupancy, checkMask))
+            {
+                moves[count++] = Move.create(from, enPassant, Move.FLAG_EN_PASSANT);
+            }
+        }
+        return count;
+    }
+
+    //
+    // Checks an en passant capture by replaying it on the occupancy, since
+    // it removes two pieces from the same row at once.
+    //
+    private static boolean isEnPassantLegal(Position position, int us, int king, int from, int to, long occupancy,
+                                            long checkMask) {
+        int captured = to + ((us == Position.WHITE) ? -8 : 8);
+        if ((checkMask & ((1L << to) | (1L << captured))) == 0)
+        {
+            return false;
+        }
+
+        int them = us ^ 1;
+        long after = (occupancy & ~(1L << from) & ~(1L << captured)) | (1L << to);
+        long queens = position.getPieces(them, Position.QUEEN);
+        return ((AttackTables.rookAttacks(king, after) & (position.getPieces(them, Position.ROOK) | queens)) == 0)
+                && ((AttackTables.bishopAttacks(king, after) & (position.getPieces(them, Position.BISHOP) | queens)) == 0);
+    }
+
+    //
+    // Writes the castlings available to a king which is not in check.
+    //
+    private static int generateCastlings(Position position, int us, int king, long occupancy, int[] moves,
+                                         int count) {
+        int rights = position.getCastlingRights();
+        int kingside = (us == Position.WHITE) ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+        int queenside = (us == Position.WHITE) ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+        int rook = Position.pieceCode(us, Position.ROOK);
+
+        // Castling rights are only kept while the king stays on its square.
+        if (king != Position.square(4, (us == Position.WHITE) ? 0 : 7))
+        {
+            return count;
+        }
+
+        if (((rights & kingside) != 0) && (position.getPieceAt(king + 3) == rook)
+                && ((occupancy & ((1L << (king + 1)) | (1L << (king + 2)))) == 0)
+                && !AttackTables.isSquareAttacked(position, king + 1, us ^ 1)
+                && !AttackTables.isSquareAttacked(position, king + 2, us ^ 1))
+        {
+            moves[count++] = Move.create(king, king + 2, Move.FLAG_CASTLING);
+        }
+
+        if (((rights & queenside) != 0) && (position.getPieceAt(king - 4) == rook)
+                && ((occupancy & ((1L << (king - 1)) | (1L << (king - 2)) | (1L << (king - 3)))) == 0)
+                && !AttackTables.isSquareAttacked(position, king - 1, us ^ 1)
+                && !AttackTables.isSquareAttacked(position, king - 2, us ^ 1))
+        {
+            moves[count++] = Move.create(king, king - 2, Move.FLAG_CASTLING);
+        }
+        return count;
+    }
+
+    //
+    // Retrieves the pieces of a colour which cannot leave the line between
+    // their king and an enemy slider.
+    //
+    private static long calculatePinnedPieces(Position position, int us, int king, long occupancy) {
+        int them = us ^ 1;
+        long enemies = position.getOccupancy(them);
+        long queens = position.getPieces(them, Position.QUEEN);
+        long pinners = (AttackTables.rookAttacks(king, enemies) & (position.getPieces(them, Position.ROOK) | queens))
+                | (AttackTables.bishopAttacks(king, enemies) & (position.getPieces(them, Position.BISHOP) | queens));
+
+        long pinned = 0;
+        while (pinners != 0)
+        {
+            int pinner = Long.numberOfTrailingZeros(pinners);
+            pinners &= pinners - 1;
+            long blockers = AttackTables.between(king, pinner) & occupancy;
+            if (Long.bitCount(blockers) == 1)
+            {
+                pinned |= blockers & position.getOccupancy(us);
+            }
+        }
+        return pinned;
+    }
+
+    //
+    // Limits the targets of a pinned piece to the line of its pin.
+    //
+    private static long restrictToPin(long targets, int from, int king, long pinned) {
+        if ((pinned & (1L << from)) != 0)
+        {
+            return targets & AttackTables.line(king, from);
+        }
+        return targets;
+    }
+
+    //
+    // Writes a move from the square towards each of the targets.
+    //
+    private static int addMoves(int from, long targets, int[] moves, int count) {
+        while (targets != 0)
+        {
+            moves[count++] = Move.create(from, Long.numberOfTrailingZeros(targets));
+            targets &= targets - 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,120 @@
+package chess.gameplay;
+
+import chess.gameplay.world.Position;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Move path enumeration: counts the leaf nodes of the tree of legal moves
+// up to a certain depth. Comparing the counts against published values
+// proves the rules right, and timing it measures move generation speed.
+public class Perft {
+    // Plies below which the parallel mode stops splitting the tree.
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    // Position the moves are made and unmade on, and the move list reused
+    // on each ply, so that counting does not allocate once the instance
+    // has been created.
+    private final Position position = new Position();
+    private final int[][] moveLists;
+
+    //
+    // Creates an instance able to count up to the passed depth.
+    //
+    public Perft(int maxDepth) {
+        moveLists = new int[maxDepth + 1][MoveGenerator.MAX_MOVES];
+    }
+
+    //
+    // Counts the leaf nodes found at the passed depth from the position.
+    //
+    public long count(Position root, int depth) {
+        if (depth >= moveLists.length) {
+            throw new IllegalArgumentException("'depth' holds an invalid value: " + depth);
+        }
+
+        position.copyFrom(root);
+        return count(0, depth);
+    }
+
+    private long count(int ply, int depth) {
+        int[] moves = moveLists[ply];
+        int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+        // Moves on the last ply are not played, only counted.
+        if (depth <= 1) {
+            return (depth == 1) ? moveCount : 1;
+        }
+
+        long nodes = 0;
+        for (int index = 0; index < moveCount; index++) {
+            position.makeMove(moves[index]);
+            nodes += count(ply + 1, depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    //
+    // Counts the leaf nodes by splitting the moves near the root across the
+    // threads of the pool.
+    //
+    public static long parallelCount(Position root, int depth, ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(new Position(root), depth));
+    }
+
+    //
+    // Counts the leaf nodes of the position and prints the count together
+    // with the time taken and the nodes per second.
+    //
+    public static long report(Position root, int depth, boolean parallel) {
+        long start = System.nanoTime();
+        long nodes = parallel
+                ? parallelCount(root, depth, ForkJoinPool.commonPool())
+                : new Perft(depth).count(root, depth);
+        long elapsed = Math.max(1, System.nanoTime() - start);
+
+        System.out.printf("perft(%d) = %d in %d ms, %d nps%s%n", depth, nodes, elapsed / 1_000_000,
+                (long)(nodes * 1e9 / elapsed),
+                parallel ? String.format(" (%d threads)", ForkJoinPool.commonPool().getParallelism()) : "");
+        return nodes;
+    }
+
+    //
+    // Task counting the subtree of a position, which forks a task per move
+    // while the remaining depth is large enough to be worth splitting.
+    //
+    private static class PerftTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final int depth;
+
+        PerftTask(Position position, int depth) {
+            this.position = position;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                return new Perft(depth).count(position, depth);
+            }
+
+            int[] moves = new int[MoveGenerator.MAX_MOVES];
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+            ArrayList<PerftTask> tasks = new ArrayList<>(moveCount);
+            for (int index = 0; index < moveCount; index++) {
+                Position child = new Position(position);
+                child.makeMove(moves[index]);
+                tasks.add(new PerftTask(child, depth - 1));
+            }
+
+            long nodes = 0;
+            for (PerftTask task : invokeAll(tasks)) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
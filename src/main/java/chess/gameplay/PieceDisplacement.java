@@ -1,17 +1,35 @@
 package chess.gameplay;
 
+import chess.gameplay.world.AttackTables;
 import chess.gameplay.world.Board;
-import chess.gameplay.world.BoardCell;
 import chess.gameplay.world.ChessPiece;
+import chess.gameplay.world.Move;
 import chess.gameplay.world.Player;
+import chess.gameplay.world.Position;
 
 // Rule provider for all the chess pieces.
 public class PieceDisplacement   
 {
+    public enum PositionStatus
+    {
+        // Different possible statuses of a position for the player on turn.
+        PLAYING,
+        CHECK,
+        CHECKMATE,
+        STALEMATE,
+        INSUFFICIENT_MATERIAL
+    }
+
+    // Move list of each thread checking the rules, reused from one call to
+    // the next so that validating a movement does not allocate. Matches
+    // run on one thread at a time, and calls never nest.
+    private static final ThreadLocal<int[]> MOVE_LISTS =
+            ThreadLocal.withInitial(() -> new int[MoveGenerator.MAX_MOVES]);
+
     // Id of the chess piece being moved.
-    private final String chessPieceId;
+    private final int chessPieceId;
 
-    public String getChessPieceId() {
+    public int getChessPieceId() {
         return chessPieceId;
     }
 
@@ -35,15 +53,31 @@ public class PieceDisplacement
         return targetRow;
     }
 
+    // Type a pawn reaching the last row is promoted to.
+    private final ChessPiece.PieceType promotionType;
+
+    public ChessPiece.PieceType getPromotionType() {
+        return promotionType;
+    }
+
+    //
+    // Creates an instance of PieceDisplacement, promoting pawns to queens.
+    //
+    public PieceDisplacement(int chessPieceId, Player player, int targetColumn, int targetRow)  {
+        this(chessPieceId, player, targetColumn, targetRow, ChessPiece.PieceType.QUEEN);
+    }
+
     //
     // Creates an instance of PieceDisplacement.
     //
-    public PieceDisplacement(String chessPieceId, Player player, int targetColumn, int targetRow)  {
+    public PieceDisplacement(int chessPieceId, Player player, int targetColumn, int targetRow,
+                             ChessPiece.PieceType promotionType)  {
         // Initializes the properties with the passed arguments.
         this.chessPieceId = chessPieceId;
         this.sourcePlayer = player;
         this.targetColumn = targetColumn;
         this.targetRow = targetRow;
+        this.promotionType = promotionType;
     }
 
     //
@@ -68,361 +102,82 @@ public class PieceDisplacement
                     " by using a chess piece which is not available on the board.");
         }
          
-        // Only knights can move on non-diagonal ways.
-        if ((piece.getType() != ChessPiece.PieceType.KNIGHT) && (targetRow != piece.getRow()) &&
-                (targetColumn != piece.getColumn()))
-        {
-            int slope = (targetRow - piece.getRow()) / (targetColumn - piece.getColumn());
-
-            if ((slope != 1) && (slope != -1))
-            {
-                return false;
-            }
-        }
-         
-        // Check the movement depending on the chess piece's type.
-        switch(piece.getType())
-        {
-            case PAWN: 
-                return checkMovementForPawn(board,piece,player,targetColumn,targetRow);
-            case KNIGHT: 
-                return checkMovementForKnight(board,piece,player,targetColumn,targetRow);
-            case BISHOP: 
-                return checkMovementForBishop(board,piece,player,targetColumn,targetRow);
-            case ROOK: 
-                return checkMovementForRook(board,piece,player,targetColumn,targetRow);
-            case QUEEN: 
-                return (checkMovementForBishop(board,piece,player,targetColumn,targetRow) ||
-                        checkMovementForRook(board,piece,player,targetColumn,targetRow));
-            case KING: 
-                return checkMovementForKing(board,piece,player,targetColumn,targetRow);
-        
-        }
-        return false;
+        return (findLegalMove(board, piece, player, targetColumn, targetRow) != Move.NONE);
     }
 
     //
-    // Specifies whether or not the described movement
-    // can be made by a Pawn.
+    // Looks for the legal move which takes the piece towards the target
+    // position, returning Move.NONE when there is none. Pawns reaching the
+    // last row are promoted to queens.
     //
-    private static boolean checkMovementForPawn(Board board, ChessPiece piece, Player player,
-                                                int targetColumn, int targetRow)  {
-        // We check the direction of the pawn movement.
-        int movementDirection = (player.getId() == 0) ? 1 : -1;
-        BoardCell targetCell = board.getCell(targetColumn,targetRow);
-        int playerPawnsRow = (Board.CHESS_PREVIOUS_TOP_PAWNS_ROW * player.getId()) + 1;
-        // If movement is made on the same column, then the space in front
-        // must be empty.
-        if (piece.getColumn() == targetColumn)
-        {
-            if (piece.getRow() + movementDirection == targetRow)
-            {
-                return !(targetCell.hasPiece());
-            }
-            else if (piece.getRow() == playerPawnsRow)
-            {
-                int rowsDifferential = Math.abs(piece.getRow() - targetRow);
-                if (rowsDifferential == 2)
-                {
-                    ChessPiece pieceInPath = board.detectFirstPieceWithinLine(piece.getColumn(),
-                            piece.getRow(),targetColumn,targetRow);
-                    return (pieceInPath == null);
-                }
-            }
-        }
-        else if ((piece.getColumn() + 1 == targetColumn) || (piece.getColumn() - 1 == targetColumn))
-        {
-            // If the movement its a diagonal one, then there must be an
-            // enemy piece located on them.
-            if (piece.getRow() + movementDirection == targetRow)
-            {
-                if (targetCell.hasPiece())
-                {
-                    return (targetCell.getPiece().getOwner() != player);
-                }
-                 
-            }
-             
-        }
-          
-        return false;
+    public static int findLegalMove(Board board, ChessPiece piece, Player player, int targetColumn, int targetRow)  {
+        return findLegalMove(board, piece, player, targetColumn, targetRow, ChessPiece.PieceType.QUEEN);
     }
 
     //
-    // Describes whether or not the specified movement can
-    // be made by a Knight.
+    // Looks for the legal move which takes the piece towards the target
+    // position, promoting pawns to the passed type, returning Move.NONE
+    // when there is none.
     //
-    private static boolean checkMovementForKnight(Board board, ChessPiece piece,
-                                                  Player player, int targetColumn, int targetRow)  {
-        // Amount of difference between the current position of the piece
-        // and the target position.
-        int columnDifferential = Math.abs(piece.getColumn() - targetColumn);
-        int rowDifferential = Math.abs(piece.getRow() - targetRow);
-        // Knight movement can move with a distance of 2 columns and 1 row,
-        // or 2 rows and 1 column.
-        if (((columnDifferential == 2) && (rowDifferential == 1)) ||
-                ((columnDifferential == 1) && (rowDifferential == 2)))
+    public static int findLegalMove(Board board, ChessPiece piece, Player player, int targetColumn, int targetRow,
+                                    ChessPiece.PieceType promotionType)  {
+        Position position = board.getPosition();
+        // Only the player whose turn it is can move.
+        if (Position.colorOf(player) != position.getSideToMove())
         {
-            // Check if the target position has a piece on it.
-            BoardCell targetCell = board.getCell(targetColumn,targetRow);
-            if (targetCell.hasPiece())
-            {
-                return (targetCell.getPiece().getOwner() != player);
-            }
-            else
-            {
-                return true;
-            } 
+            return Move.NONE;
         }
-         
-        return false;
-    }
 
-    //
-    // Describes whether or not the movement can be made by a Bishop.
-    //
-    private static boolean checkMovementForBishop(Board board, ChessPiece piece, Player player, int targetColumn, int targetRow)  {
-        if ((targetRow != piece.getRow()) && (targetColumn != piece.getColumn()))
+        int from = Position.square(piece.getColumn(), piece.getRow());
+        int to = Position.square(targetColumn, targetRow);
+        int[] moves = MOVE_LISTS.get();
+        int count = MoveGenerator.generateLegalMoves(position, moves);
+        for (int index = 0;index < count;index++)
         {
-            // If movement is not diagonal, then the movement it's illegal.
-            if (Math.abs(targetRow - piece.getRow()) != Math.abs(targetColumn - piece.getColumn()))
+            if ((Move.from(moves[index]) == from) && (Move.to(moves[index]) == to) &&
+                    (!Move.isPromotion(moves[index]) ||
+                            (Move.promotionType(moves[index]) == promotionType.ordinal())))
             {
-                return false;
+                return moves[index];
             }
-             
-            // Detect if there's any chess piece on the path of the bishop.
-            ChessPiece pieceInPath = board.detectFirstPieceWithinLine(piece.getColumn(),piece.getRow(),targetColumn,targetRow);
-            // If there's no piece in the path, then the movement can be made.
-            if (pieceInPath == null)
-            {
-                BoardCell targetCell = board.getCell(targetColumn,targetRow);
-                if (targetCell.hasPiece())
-                {
-                    return (targetCell.getPiece().getOwner() != player);
-                }
-                 
-                return true;
-            }
-             
         }
-         
-        return false;
+        return Move.NONE;
     }
 
     //
-    // Describes whether or not the movement can be made by a Rook.
+    // Evaluates the status of the position for the player whose turn it
+    // is. A single attack map of the rival's pieces tells whether the king
+    // is in check and whether it can step away; only when it cannot, the
+    // remaining moves (captures of the checker, interpositions and moves
+    // of the other pieces) are generated.
     //
-    private static boolean checkMovementForRook(Board board, ChessPiece piece,
-                                                Player player, int targetColumn, int targetRow)  {
-        // The movement must be linear on an axis.
-        if ((piece.getColumn() == targetColumn) || (piece.getRow() == targetRow))
+    public static PositionStatus evaluatePosition(Board board)  {
+        Position position = board.getPosition();
+        int color = position.getSideToMove();
+        int king = position.getKingSquare(color);
+        if (king == Position.NO_SQUARE)
         {
-            // Detect if there's any piece on the path.
-            ChessPiece pieceInPath = board.detectFirstPieceWithinLine(piece.getColumn(),
-                    piece.getRow(),targetColumn,targetRow);
-            // There must be no piece on the path, since only the Knight
-            // jumps over chess pieces.
-            if (pieceInPath == null)
-            {
-                // Get the cell at the target position.
-                BoardCell targetCell = board.getCell(targetColumn,targetRow);
-                // Check whether or not there's a piece on the target cell.
-                if (targetCell.hasPiece())
-                {
-                    return (targetCell.getPiece().getOwner() != player);
-                }
-                else
-                {
-                    return true;
-                } 
-            }
-             
+            throw new IllegalStateException("Could not find king piece of the player on turn.");
         }
-         
-        return false;
-    }
 
-    // If there's a piece, it must be the rival's one.
-    //
-    // Specifies whether or not the movement can be made by the King.
-    //
-    private static boolean checkMovementForKing(Board board, ChessPiece piece,
-                                                Player player, int targetColumn, int targetRow)  {
-        // Displacement desired to be made on the axes.
-        int columnDifferential = Math.abs(piece.getColumn() - targetColumn);
-        int rowDifferential = Math.abs(piece.getRow() - targetRow);
-        // The king can only move within a radius of 1 cell.
-        if ((columnDifferential <= 1) && (rowDifferential <= 1))
-        {
-            // The king cannot move on a cell which is being attacked.
-            if (isCellUnderAttack(board,player,targetColumn,targetRow))
-            {
-                return false;
-            }
-             
-            // Get the target cell.
-            BoardCell targetCell = board.getCell(targetColumn,targetRow);
-            if (targetCell.hasPiece())
-            {
-                // If there's a piece on the target cell, that is not
-                // another king, and the owner of the piece is the rival,
-                // then the movement can be made.
-                return (targetCell.getPiece().getOwner() != player) &&
-                        (targetCell.getPiece().getType() != ChessPiece.PieceType.KING);
-            }
-            else
-            {
-                return true;
-            } 
-        }
-         
-        return false;
-    }
+        // The king is taken out of the occupancy, so that it cannot hide from
+        // a slider by stepping along its ray.
+        long occupancy = position.getAllOccupancy() & ~(1L << king);
+        long attacked = AttackTables.calculateAttackMap(position, color ^ 1, occupancy);
+        boolean inCheck = ((attacked & (1L << king)) != 0);
+        long escapes = AttackTables.kingAttacks(king) & ~position.getOccupancy(color) & ~attacked;
 
-    //
-    // Indicates whether or not a cell is in the path of a certain
-    // rival's chess piece.
-    //
-    private static boolean isCellUnderAttack(Board board, Player player, int targetColumn, int targetRow)  {
-        for (ChessPiece piece : board.getChessPieces())
+        if ((escapes == 0) &&
+                (MoveGenerator.generateLegalMoves(position, MOVE_LISTS.get()) == 0))
         {
-            if (piece.getOwner() != player)
-            {
-                // Check if enemy can move any of its pieces towards
-                // the target position.
-                if (isMovementLegal(board,piece,piece.getOwner(),targetColumn,targetRow))
-                {
-                    return true;
-                }
-                 
-            }
-             
+            return inCheck ? PositionStatus.CHECKMATE : PositionStatus.STALEMATE;
         }
-        return false;
-    }
-
-    //
-    // Indicates whether or not the King has any room left where
-    // he could go.
-    //
-    public static boolean hasKingAnyMovementsLeft(Board board, ChessPiece king)  {
-        // Lowest available position.
-        int minColumn = Math.max(0,king.getColumn() - 1);
-        int minRow = Math.max(0,king.getRow() - 1);
-        // Highest available position.
-        int maxColumn = Math.min(7,king.getColumn() + 1);
-        int maxRow = Math.min(7,king.getRow() + 1);
-        // Retrieve how many cells are unavailable.
-        BooleanFlag beingAttacked = new BooleanFlag();
-        int unavailableCells = retrieveOccupiedCellsOnSurrounding(board,king);
-        unavailableCells += retrieveAttackedCellsOnSurrounding(board,king,beingAttacked);
-
-        // Inclusive positioning implemented by + 1, and exclusion of the
-        // position of the chess piece with the -1.
-        int maxKingMovements = ((Math.abs(maxColumn - minColumn) + 1) * (Math.abs(maxRow - minRow) + 1)) - 1;
-        return (!beingAttacked.value) || (unavailableCells < maxKingMovements);
-    }
-
-    //
-    // Retrieves the amount of occupied cells in the surrounding
-    // of a king
-    //
-    private static int retrieveOccupiedCellsOnSurrounding(Board board, ChessPiece king)  {
-        // Lowest available position.
-        int minColumn = Math.max(0,king.getColumn() - 1);
-        int minRow = Math.max(0,king.getRow() - 1);
-
-        // Highest available position.
-        int maxColumn = Math.min(7,king.getColumn() + 1);
-        int maxRow = Math.min(7,king.getRow() + 1);
 
-        // Amount of occupied cells.
-        int occupiedCount = 0;
-        for (int targetColumn = minColumn;targetColumn <= maxColumn;targetColumn++)
+        if (position.isInsufficientMaterial())
         {
-            for (int targetRow = minRow;targetRow <= maxRow;targetRow++)
-            {
-                // We check the occupied cells in the surrounding of the King piece.
-                // Get the cell within the radius of movement of the king.
-                BoardCell cell = board.getCell(targetColumn,targetRow);
-                // Check whether there is a piece or not.
-                if (cell.hasPiece())
-                {
-                    ChessPiece pieceOnBoard = cell.getPiece();
-                    if (pieceOnBoard != king)
-                    {
-                        // If there's the rival king on the cell,
-                        // then the occupied cells amount increase.
-                        if (pieceOnBoard.getType() == ChessPiece.PieceType.KING)
-                        {
-                            occupiedCount++;
-                        }
-                        else if (pieceOnBoard.getOwner() == king.getOwner())
-                        {
-                            occupiedCount++;
-                        }
-                          
-                    }
-                     
-                }
-                 
-            }
+            return PositionStatus.INSUFFICIENT_MATERIAL;
         }
-        return occupiedCount;
-    }
 
-    //
-    // Retrieves the amount of attacked cells in the surrounding of
-    // a king.
-    //
-    private static int retrieveAttackedCellsOnSurrounding(Board board, ChessPiece king, BooleanFlag beingAttacked)  {
-        // Lowest available position.
-        int minColumn = Math.max(0,king.getColumn() - 1);
-        int minRow = Math.max(0,king.getRow() - 1);
-
-        // Highest available position.
-        int maxColumn = Math.min(7,king.getColumn() + 1);
-        int maxRow = Math.min(7,king.getRow() + 1);
-
-        // Indicate whether or not the king is being attacked.
-        beingAttacked.value = false;
-
-        // Indicates the amount of attacked cells in the surrounding
-        // of the king.
-        int attackedCount = 0;
-
-        for (ChessPiece pieceOnBoard : board.getChessPieces())
-        {
-            // Check every rival's chess piece on the table, whether or not
-            // it's attacking the king or his surroundings.
-            // Check only if the piece, its a rival's one.
-            if (pieceOnBoard.getOwner() != king.getOwner())
-            {
-                for (int targetColumn = minColumn;targetColumn <= maxColumn;targetColumn++)
-                {
-                    for (int targetRow = minRow;targetRow <= maxRow;targetRow++)
-                    {
-                        // Check whether or not the cell is being attacked.
-                        if (isCellUnderAttack(board,king.getOwner(),targetColumn,targetRow))
-                        {
-                            if ((king.getColumn() == targetColumn) && (king.getRow() == targetRow))
-                            {
-                                // The king is being attacked if
-                                // his position is being attacked by
-                                // the rival's chess piece.
-                                beingAttacked.value = true;
-                            }
-                            else
-                            {
-                                attackedCount++;
-                            } 
-                        }
-                         
-                    }
-                }
-            }
-             
-        }
-        return attackedCount;
+        return inCheck ? PositionStatus.CHECK : PositionStatus.PLAYING;
     }
-}
\ No newline at end of file
+}
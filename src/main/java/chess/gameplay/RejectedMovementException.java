@@ -0,0 +1,13 @@
+package chess.gameplay;
+
+// Thrown when a match rejects a submitted movement: an illegal one, one
+// made out of turn or one submitted while no movement is awaited. It is
+// the fault of a player rather than of the program, and is reported to
+// the controller of the match as an invalid interaction.
+public class RejectedMovementException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    public RejectedMovementException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,392 @@
+package chess.gameplay.world;
+
+// Precomputed attack sets for every piece type. Knights, kings and pawns
+// use a plain table per square, while rooks and bishops use magic bitboards:
+// the blockers relevant to a square are multiplied by a magic number whose
+// top bits index a table holding the attacks for that occupancy.
+public final class AttackTables
+{
+    // Columns used for preventing wrap-arounds when shifting pawns.
+    private static final long COLUMN_A = 0x0101010101010101L;
+    private static final long COLUMN_H = COLUMN_A << 7;
+
+    // Non-sliding attacks indexed by square.
+    private static final long[] KNIGHT_ATTACKS = new long[Position.SQUARE_COUNT];
+    private static final long[] KING_ATTACKS = new long[Position.SQUARE_COUNT];
+
+    // Pawn captures indexed by colour and square.
+    private static final long[][] PAWN_ATTACKS = new long[2][Position.SQUARE_COUNT];
+
+    // Relevant blockers, magic numbers, shifts and table offsets of each
+    // square for the sliding pieces.
+    private static final long[] ROOK_MASKS = new long[Position.SQUARE_COUNT];
+    private static final long[] ROOK_MAGICS = new long[Position.SQUARE_COUNT];
+    private static final int[] ROOK_SHIFTS = new int[Position.SQUARE_COUNT];
+    private static final int[] ROOK_OFFSETS = new int[Position.SQUARE_COUNT];
+    private static final long[] BISHOP_MASKS = new long[Position.SQUARE_COUNT];
+    private static final long[] BISHOP_MAGICS = new long[Position.SQUARE_COUNT];
+    private static final int[] BISHOP_SHIFTS = new int[Position.SQUARE_COUNT];
+    private static final int[] BISHOP_OFFSETS = new int[Position.SQUARE_COUNT];
+
+    // Squares strictly between two aligned squares, and the whole line
+    // through them, indexed by both squares (empty when not aligned).
+    private static final long[][] BETWEEN = new long[Position.SQUARE_COUNT][Position.SQUARE_COUNT];
+    private static final long[][] LINE = new long[Position.SQUARE_COUNT][Position.SQUARE_COUNT];
+
+    // Shared attack tables of the sliding pieces.
+    private static final long[] ROOK_TABLE;
+    private static final long[] BISHOP_TABLE;
+
+    // Ray directions as column and row steps.
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Seeds of the generator used while looking for the magic numbers of
+    // each row, known to find every magic after a few thousand attempts.
+    private static final long[] MAGIC_SEEDS = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+
+    // State of the generator used while looking for magic numbers.
+    private static long magicSeed;
+
+    static {
+        for (int square = 0; square < Position.SQUARE_COUNT; square++)
+        {
+            KNIGHT_ATTACKS[square] = calculateStepAttacks(square,
+                    new int[][]{{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}});
+            KING_ATTACKS[square] = calculateStepAttacks(square,
+                    new int[][]{{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}});
+            PAWN_ATTACKS[Position.WHITE][square] = calculateStepAttacks(square, new int[][]{{1, 1}, {-1, 1}});
+            PAWN_ATTACKS[Position.BLACK][square] = calculateStepAttacks(square, new int[][]{{1, -1}, {-1, -1}});
+        }
+
+        ROOK_TABLE = initializeSlider(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = initializeSlider(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS,
+                BISHOP_OFFSETS);
+
+        for (int first = 0; first < Position.SQUARE_COUNT; first++)
+        {
+            for (int second = 0; second < Position.SQUARE_COUNT; second++)
+            {
+                long bits = (1L << first) | (1L << second);
+                if ((first != second) && ((rookAttacks(first, 0) & (1L << second)) != 0))
+                {
+                    BETWEEN[first][second] = rookAttacks(first, bits) & rookAttacks(second, bits);
+                    LINE[first][second] = (rookAttacks(first, 0) & rookAttacks(second, 0)) | bits;
+                }
+                else if ((first != second) && ((bishopAttacks(first, 0) & (1L << second)) != 0))
+                {
+                    BETWEEN[first][second] = bishopAttacks(first, bits) & bishopAttacks(second, bits);
+                    LINE[first][second] = (bishopAttacks(first, 0) & bishopAttacks(second, 0)) | bits;
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    public static long knightAttacks(int square) {
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long kingAttacks(int square) {
+        return KING_ATTACKS[square];
+    }
+
+    //
+    // Retrieves the squares attacked by a pawn of the passed colour.
+    //
+    public static long pawnAttacks(int color, int square) {
+        return PAWN_ATTACKS[color][square];
+    }
+
+    //
+    // Retrieves the squares strictly between two aligned squares.
+    //
+    public static long between(int first, int second) {
+        return BETWEEN[first][second];
+    }
+
+    //
+    // Retrieves the whole line going through two aligned squares.
+    //
+    public static long line(int first, int second) {
+        return LINE[first][second];
+    }
+
+    public static long rookAttacks(int square, long occupancy) {
+        int index = (int)(((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+    }
+
+    public static long bishopAttacks(int square, long occupancy) {
+        int index = (int)(((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+    }
+
+    public static long queenAttacks(int square, long occupancy) {
+        return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+    }
+
+    //
+    // Retrieves the squares attacked by a piece code placed on the square.
+    //
+    public static long attacksOf(int piece, int square, long occupancy) {
+        switch (Position.typeOf(piece))
+        {
+            case Position.KING:
+                return KING_ATTACKS[square];
+            case Position.QUEEN:
+                return queenAttacks(square, occupancy);
+            case Position.ROOK:
+                return rookAttacks(square, occupancy);
+            case Position.KNIGHT:
+                return KNIGHT_ATTACKS[square];
+            case Position.BISHOP:
+                return bishopAttacks(square, occupancy);
+            default:
+                return PAWN_ATTACKS[Position.colorOf(piece)][square];
+        }
+    }
+
+    //
+    // Indicates whether or not the square is attacked by any piece of the
+    // passed colour.
+    //
+    public static boolean isSquareAttacked(Position position, int square, int byColor) {
+        return isSquareAttacked(position, square, byColor, position.getAllOccupancy());
+    }
+
+    //
+    // Indicates whether or not the square is attacked by any piece of the
+    // passed colour, with sliders being blocked by the passed occupancy.
+    //
+    public static boolean isSquareAttacked(Position position, int square, int byColor, long occupancy) {
+        if ((PAWN_ATTACKS[byColor ^ 1][square] & position.getPieces(byColor, Position.PAWN)) != 0)
+        {
+            return true;
+        }
+
+        if ((KNIGHT_ATTACKS[square] & position.getPieces(byColor, Position.KNIGHT)) != 0)
+        {
+            return true;
+        }
+
+        if ((KING_ATTACKS[square] & position.getPieces(byColor, Position.KING)) != 0)
+        {
+            return true;
+        }
+
+        long queens = position.getPieces(byColor, Position.QUEEN);
+        long rooksAndQueens = position.getPieces(byColor, Position.ROOK) | queens;
+        if ((rooksAndQueens != 0) && ((rookAttacks(square, occupancy) & rooksAndQueens) != 0))
+        {
+            return true;
+        }
+
+        long bishopsAndQueens = position.getPieces(byColor, Position.BISHOP) | queens;
+        return (bishopsAndQueens != 0) && ((bishopAttacks(square, occupancy) & bishopsAndQueens) != 0);
+    }
+
+    //
+    // Retrieves every piece of the passed colour attacking the square.
+    //
+    public static long attackersOf(Position position, int square, int byColor, long occupancy) {
+        long queens = position.getPieces(byColor, Position.QUEEN);
+        return (PAWN_ATTACKS[byColor ^ 1][square] & position.getPieces(byColor, Position.PAWN))
+                | (KNIGHT_ATTACKS[square] & position.getPieces(byColor, Position.KNIGHT))
+                | (KING_ATTACKS[square] & position.getPieces(byColor, Position.KING))
+                | (rookAttacks(square, occupancy) & (position.getPieces(byColor, Position.ROOK) | queens))
+                | (bishopAttacks(square, occupancy) & (position.getPieces(byColor, Position.BISHOP) | queens));
+    }
+
+    //
+    // Calculates every square attacked by the pieces of a colour, with
+    // sliders being blocked by the passed occupancy.
+    //
+    public static long calculateAttackMap(Position position, int color, long occupancy) {
+        long pawns = position.getPieces(color, Position.PAWN);
+        long attacks = (color == Position.WHITE)
+                ? ((pawns & ~COLUMN_A) << 7) | ((pawns & ~COLUMN_H) << 9)
+                : ((pawns & ~COLUMN_A) >>> 9) | ((pawns & ~COLUMN_H) >>> 7);
+
+        int king = position.getKingSquare(color);
+        if (king != Position.NO_SQUARE)
+        {
+            attacks |= KING_ATTACKS[king];
+        }
+
+        long knights = position.getPieces(color, Position.KNIGHT);
+        while (knights != 0)
+        {
+            attacks |= KNIGHT_ATTACKS[Long.numberOfTrailingZeros(knights)];
+            knights &= knights - 1;
+        }
+
+        long queens = position.getPieces(color, Position.QUEEN);
+        long diagonals = position.getPieces(color, Position.BISHOP) | queens;
+        while (diagonals != 0)
+        {
+            attacks |= bishopAttacks(Long.numberOfTrailingZeros(diagonals), occupancy);
+            diagonals &= diagonals - 1;
+        }
+
+        long straights = position.getPieces(color, Position.ROOK) | queens;
+        while (straights != 0)
+        {
+            attacks |= rookAttacks(Long.numberOfTrailingZeros(straights), occupancy);
+            straights &= straights - 1;
+        }
+        return attacks;
+    }
+
+    //
+    // Calculates the attacks of a non-sliding piece from its steps.
+    //
+    private static long calculateStepAttacks(int square, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps)
+        {
+            int column = Position.columnOf(square) + step[0];
+            int row = Position.rowOf(square) + step[1];
+            if ((column >= 0) && (column < Board.CHESS_COLUMN_COUNT) && (row >= 0) && (row < Board.CHESS_ROW_COUNT))
+            {
+                attacks |= 1L << Position.square(column, row);
+            }
+        }
+        return attacks;
+    }
+
+    //
+    // Calculates the attacks of a sliding piece by walking its rays until
+    // they leave the board or hit a blocker.
+    //
+    private static long calculateSlidingAttacks(int square, long occupancy, int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions)
+        {
+            int column = Position.columnOf(square) + direction[0];
+            int row = Position.rowOf(square) + direction[1];
+            while ((column >= 0) && (column < Board.CHESS_COLUMN_COUNT) && (row >= 0) && (row < Board.CHESS_ROW_COUNT))
+            {
+                long bit = 1L << Position.square(column, row);
+                attacks |= bit;
+                if ((occupancy & bit) != 0)
+                {
+                    break;
+                }
+                column += direction[0];
+                row += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    //
+    // Calculates the blockers which may change the attacks of a sliding
+    // piece: its rays without the edge square of each one.
+    //
+    private static long calculateRelevantMask(int square, int[][] directions) {
+        long mask = 0;
+        for (int[] direction : directions)
+        {
+            int column = Position.columnOf(square) + direction[0];
+            int row = Position.rowOf(square) + direction[1];
+            while ((column + direction[0] >= 0) && (column + direction[0] < Board.CHESS_COLUMN_COUNT)
+                    && (row + direction[1] >= 0) && (row + direction[1] < Board.CHESS_ROW_COUNT))
+            {
+                mask |= 1L << Position.square(column, row);
+                column += direction[0];
+                row += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    //
+    // Finds a magic number for every square and fills the attack table of a
+    // sliding piece, returning it.
+    //
+    private static long[] initializeSlider(int[][] directions, long[] masks, long[] magics, int[] shifts,
+                                           int[] offsets) {
+        int tableSize = 0;
+        for (int square = 0; square < Position.SQUARE_COUNT; square++)
+        {
+            masks[square] = calculateRelevantMask(square, directions);
+            shifts[square] = Position.SQUARE_COUNT - Long.bitCount(masks[square]);
+            offsets[square] = tableSize;
+            tableSize += 1 << Long.bitCount(masks[square]);
+        }
+
+        long[] table = new long[tableSize];
+        for (int square = 0; square < Position.SQUARE_COUNT; square++)
+        {
+            int subsetCount = 1 << Long.bitCount(masks[square]);
+            long[] subsets = new long[subsetCount];
+            long[] attacks = new long[subsetCount];
+            // Enumerate every subset of the mask (Carry-Rippler trick).
+            long subset = 0;
+            for (int index = 0; index < subsetCount; index++)
+            {
+                subsets[index] = subset;
+                attacks[index] = calculateSlidingAttacks(square, subset, directions);
+                subset = (subset - masks[square]) & masks[square];
+            }
+            magicSeed = MAGIC_SEEDS[Position.rowOf(square)];
+            magics[square] = findMagic(masks[square], shifts[square], subsets, attacks);
+            for (int index = 0; index < subsetCount; index++)
+            {
+                int magicIndex = (int)((subsets[index] * magics[square]) >>> shifts[square]);
+                table[offsets[square] + magicIndex] = attacks[index];
+            }
+        }
+        return table;
+    }
+
+    //
+    // Tries sparse random numbers until one maps every subset of the mask
+    // without destructive collisions.
+    //
+    private static long findMagic(long mask, int shift, long[] subsets, long[] attacks) {
+        long[] used = new long[subsets.length];
+        int[] usedEpoch = new int[subsets.length];
+        for (int epoch = 1; ; epoch++)
+        {
+            long magic = nextRandom() & nextRandom() & nextRandom();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6)
+            {
+                continue;
+            }
+
+            boolean valid = true;
+            for (int index = 0; (index < subsets.length) && valid; index++)
+            {
+                int magicIndex = (int)((subsets[index] * magic) >>> shift);
+                if (usedEpoch[magicIndex] != epoch)
+                {
+                    usedEpoch[magicIndex] = epoch;
+                    used[magicIndex] = attacks[index];
+                }
+                else if (used[magicIndex] != attacks[index])
+                {
+                    valid = false;
+                }
+            }
+
+            if (valid)
+            {
+                return magic;
+            }
+        }
+    }
+
+    //
+    // Xorshift generator used by the magic number search.
+    //
+    private static long nextRandom() {
+        magicSeed ^= magicSeed >>> 12;
+        magicSeed ^= magicSeed << 25;
+        magicSeed ^= magicSeed >>> 27;
+        return magicSeed * 0x2545F4914F6CDD1DL;
+    }
+}
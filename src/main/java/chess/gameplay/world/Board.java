@@ -1,8 +1,10 @@
 package chess.gameplay.world;
 
+import chess.gameplay.Perft;
 import chess.gameplay.PieceDisplacement;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 // Stores the different movements made within the game.
 public class Board   
@@ -23,9 +25,23 @@ public class Board
     // are located.
     public static final int CHESS_PREVIOUS_TOP_PAWNS_ROW = 5;
 
-    // Cell holder.
+    // Cell holder, object view of the pieces stored on the position.
     private final BoardCell[][] cells;
 
+    // Bitboard representation of the pieces located on the board.
+    private final Position position;
+
+    public Position getPosition() {
+        return position;
+    }
+
+    // Pieces on the board indexed by their id.
+    private final ChessPiece[] piecesById = new ChessPiece[ChessPiece.ID_COUNT];
+
+    // Pieces captured by each move made, null for moves capturing nothing.
+    private ChessPiece[] capturedPieces = new ChessPiece[CHESS_ROW_COUNT * CHESS_COLUMN_COUNT];
+    private int capturedCount;
+
     // List containing chess pieces in order to avoid checking each board cell.
     private ArrayList<ChessPiece> chessPieces;
 
@@ -53,6 +69,8 @@ public class Board
         }
         // Initializer of the holder for the chess pieces.
         setChessPieces(new ArrayList<ChessPiece>());
+        // Initializer of the bitboards.
+        position = new Position();
     }
 
     //
@@ -87,10 +105,17 @@ public class Board
         {
             throw new IllegalStateException("Cell is occupied already.");
         }
+
+        if (piecesById[piece.getId()] != null)
+        {
+            throw new IllegalStateException("Piece id is in use already: " + piece.getId());
+        }
          
         // Addition of the pieces to the according board cell.
         cells[column][row].setPiece(piece);
         getChessPieces().add(piece);
+        piecesById[piece.getId()] = piece;
+        position.putPiece(Position.codeOf(piece), Position.square(column, row));
     }
 
     //
@@ -105,30 +130,110 @@ public class Board
             throw new IllegalStateException("'movement' contains an 'ChessPieceId': " +
                     movement.getChessPieceId());
         }
-         
-        // Retrieves the target cell located at a certain column and row.
-        BoardCell targetCell = getCell(movement.getTargetColumn(),movement.getTargetRow());
-        // In case cell has a piece, its owner must be the other player.
-        if (targetCell.hasPiece())
+
+        // Encodes the movement, telling apart castlings, en passant captures
+        // and promotions.
+        int move = PieceDisplacement.findLegalMove(this, piece, movement.getSourcePlayer(),
+                movement.getTargetColumn(), movement.getTargetRow(), movement.getPromotionType());
+        if (move == Move.NONE)
         {
-            if (targetCell.getPiece().getOwner() != piece.getOwner())
-            {
-                removePiece(targetCell.getPiece());
-            }
-            else
-            {
-                throw new IllegalStateException("Tried to apply an illegal movement.");
-            } 
+            throw new IllegalStateException("Tried to apply an illegal movement.");
         }
-         
-        // Retrieve the cell from which the piece has originated the move.
-        BoardCell sourceCell = getCell(piece.getColumn(),piece.getRow());
+
+        makeMove(move);
+    }
+
+    //
+    // Plays a legal move of the side to move on both the position and the
+    // cells. The captured piece is kept, so that unmakeMove can put it
+    // back on the board.
+    //
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = getCell(Position.columnOf(from),Position.rowOf(from)).getPiece();
+
+        // The captured pawn of an en passant stands beside the origin.
+        int capturedSquare = Move.isEnPassant(move) ? Position.square(Position.columnOf(to),Position.rowOf(from)) : to;
+        BoardCell capturedCell = getCell(Position.columnOf(capturedSquare),Position.rowOf(capturedSquare));
+        ChessPiece captured = capturedCell.getPiece();
+        if (captured != null)
+        {
+            removePiece(captured);
+            capturedCell.setPiece(null);
+        }
+        pushCapturedPiece(captured);
+
+        if (Move.isCastling(move))
+        {
+            // The rook jumps over the king towards the center.
+            boolean kingside = (to > from);
+            ChessPiece rook = getCell(kingside ? CHESS_COLUMN_COUNT - 1 : 0,piece.getRow()).getPiece();
+            movePieceToCell(rook,Position.columnOf(to) + (kingside ? -1 : 1),piece.getRow());
+        }
+
+        movePieceToCell(piece,Position.columnOf(to),Position.rowOf(to));
+        if (Move.isPromotion(move))
+        {
+            piece.setType(ChessPiece.PieceType.values()[Move.promotionType(move)]);
+        }
+
+        position.makeMove(move);
+    }
+
+    //
+    // Takes back the last move made on the board, returning it.
+    //
+    public int unmakeMove() {
+        int move = position.unmakeMove();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = getCell(Position.columnOf(to),Position.rowOf(to)).getPiece();
+
+        movePieceToCell(piece,Position.columnOf(from),Position.rowOf(from));
+        if (Move.isPromotion(move))
+        {
+            piece.setType(ChessPiece.PieceType.PAWN);
+        }
+        else if (Move.isCastling(move))
+        {
+            boolean kingside = (to > from);
+            ChessPiece rook = getCell(Position.columnOf(to) + (kingside ? -1 : 1),piece.getRow()).getPiece();
+            movePieceToCell(rook,kingside ? CHESS_COLUMN_COUNT - 1 : 0,piece.getRow());
+        }
+
+        ChessPiece captured = capturedPieces[--capturedCount];
+        capturedPieces[capturedCount] = null;
+        if (captured != null)
+        {
+            getCell(captured.getColumn(),captured.getRow()).setPiece(captured);
+            getChessPieces().add(captured);
+            piecesById[captured.getId()] = captured;
+        }
+        return move;
+    }
+
+    //
+    // Keeps the piece captured by a move (or null) until it is unmade.
+    //
+    private void pushCapturedPiece(ChessPiece captured) {
+        if (capturedCount == capturedPieces.length)
+        {
+            capturedPieces = Arrays.copyOf(capturedPieces, capturedCount * 2);
+        }
+        capturedPieces[capturedCount++] = captured;
+    }
+
+    //
+    // Moves a piece from its cell towards the one at the column and row.
+    //
+    private void movePieceToCell(ChessPiece piece, int column, int row) {
         // We remove the piece from the cell from which one we departed.
-        sourceCell.setPiece(null);
+        getCell(piece.getColumn(),piece.getRow()).setPiece(null);
         // Update the status of the piece
-        piece.setColumn(movement.getTargetColumn());
-        piece.setRow(movement.getTargetRow());
-        targetCell.setPiece(piece);
+        piece.setColumn(column);
+        piece.setRow(row);
+        getCell(column,row).setPiece(piece);
     }
 
     //
@@ -136,33 +241,20 @@ public class Board
     //
     private void removePiece(ChessPiece piece) {
         getChessPieces().remove(piece);
+        piecesById[piece.getId()] = null;
     }
 
     //
     // Retrieves the chess piece by looking for its Id.
     //
-    public ChessPiece getChessPieceById(String pieceId) {
-        // Assure piece ID is not empty.
-        if (pieceId.length() == 0)
+    public ChessPiece getChessPieceById(int pieceId) {
+        // Assure piece ID is valid.
+        if ((pieceId < 0) || (pieceId >= ChessPiece.ID_COUNT))
         {
-            throw new IllegalArgumentException("'pieceID' is empty.");
+            throw new IllegalArgumentException("'pieceId' holds an invalid value: " + pieceId);
         }
 
-        for (BoardCell[] column : cells)
-        {
-            for (BoardCell cell : column) {
-                if (cell.hasPiece())
-                {
-                    if (pieceId.equals(cell.getPiece().getId()))
-                    {
-                        return cell.getPiece();
-                    }
-
-                }
-            }
-        }
-
-        return null;
+        return piecesById[pieceId];
     }
 
     //
@@ -179,10 +271,9 @@ public class Board
                 // Go through all rows.
                 if (((rowDirection == 1) && (row < endRow)) || ((rowDirection == -1) && (row > endRow)))
                 {
-                    BoardCell cell = getCell(startColumn,row);
-                    if (cell.hasPiece())
+                    if (isSquareOccupied(startColumn,row))
                     {
-                        return cell.getPiece();
+                        return getCell(startColumn,row).getPiece();
                     }
                      
                 }
@@ -205,10 +296,9 @@ public class Board
                 if (((columnDirection == 1) && (column < endColumn)) || ((columnDirection == -1) &&
                         (column > endColumn)))
                 {
-                    BoardCell cell = getCell(column,startRow);
-                    if (cell.hasPiece())
+                    if (isSquareOccupied(column,startRow))
                     {
-                        return cell.getPiece();
+                        return getCell(column,startRow).getPiece();
                     }
                      
                 }
@@ -240,10 +330,9 @@ public class Board
                 {
                     if (((rowDirection == 1) && (row < endRow)) || ((rowDirection == -1) && (row > endRow)))
                     {
-                        BoardCell cell = getCell(column,row);
-                        if (cell.hasPiece())
+                        if (isSquareOccupied(column,row))
                         {
-                            return cell.getPiece();
+                            return getCell(column,row).getPiece();
                         }
                          
                     }
@@ -263,22 +352,45 @@ public class Board
         return null;
     }
 
+    //
+    // Checks the occupancy bitboard for a piece on the column and row.
+    //
+    private boolean isSquareOccupied(int column, int row) {
+        return (position.getAllOccupancy() & (1L << Position.square(column, row))) != 0;
+    }
+
+    //
+    // Retrieves the Zobrist key identifying the current position.
+    //
+    public long getHashKey() {
+        return position.getHashKey();
+    }
+
+    //
+    // Retrieves the Zobrist key identifying the pawn structure.
+    //
+    public long getPawnHashKey() {
+        return position.getPawnHashKey();
+    }
+
+    //
+    // Counts the leaf nodes of the tree of legal moves up to the depth.
+    //
+    public long perft(int depth) {
+        return new Perft(depth).count(position, depth);
+    }
+
     //
     //	Retrieves the king chess piece of the specified player.
     //
     public ChessPiece getKingOfPlayer(Player player)  {
-        for (BoardCell[] column : cells)
+        int square = position.getKingSquare(Position.colorOf(player));
+        if (square == Position.NO_SQUARE)
         {
-            for (BoardCell cell : column) {
-                if (cell.hasPiece()) {
-                    if ((cell.getPiece().getOwner() == player) &&
-                            (cell.getPiece().getType() == ChessPiece.PieceType.KING)) {
-                        return cell.getPiece();
-                    }
-                }
-            }
+            return null;
         }
-        return null;
+
+        return getCell(Position.columnOf(square), Position.rowOf(square)).getPiece();
     }
 }
 
@@ -20,10 +20,13 @@ public class ChessPiece
         WHITE
     }
 
-    // Used as identifier through the game.
-    private final String id;
+    // Amount of different ids: 16 pieces for each player.
+    public static final int ID_COUNT = 32;
 
-    public String getId() {
+    // Used as identifier through the game, unique within a board.
+    private final int id;
+
+    public int getId() {
         return id;
     }
 
@@ -82,17 +85,53 @@ public class ChessPiece
 
     //
     // Calculates the Id of a chess piece by making usage
-    // of several parameters.
+    // of several parameters. Each player owns 16 consecutive ids: the
+    // king, the queen, both rooks, knights and bishops, and the 8 pawns.
+    // The king and the queen, being one of a kind, are always number 0.
     //
-    private static String calculateId(int pieceNumber, Player player, PieceType type)  {
-        if (type == PieceType.KING)
+    private static int calculateId(int pieceNumber, Player player, PieceType type)  {
+        int maxPieceNumber;
+        switch(type)
+        {
+            case KING:
+            case QUEEN:
+                maxPieceNumber = 1;
+                break;
+            case PAWN:
+                maxPieceNumber = Board.CHESS_COLUMN_COUNT;
+                break;
+            default:
+                maxPieceNumber = 2;
+                break;
+        }
+        if ((pieceNumber < 0) || (pieceNumber >= maxPieceNumber))
         {
-            return String.format("{%s}-{%s}", player, type);
+            throw new IllegalArgumentException("'pieceNumber' holds an invalid value: " + pieceNumber);
         }
-        else
+
+        int slot;
+        switch(type)
         {
-            return String.format("{%s}-{%s}-{%d}", player, type, pieceNumber);
+            case KING: 
+                slot = 0;
+                break;
+            case QUEEN: 
+                slot = 1;
+                break;
+            case ROOK: 
+                slot = 2 + pieceNumber;
+                break;
+            case KNIGHT: 
+                slot = 4 + pieceNumber;
+                break;
+            case BISHOP: 
+                slot = 6 + pieceNumber;
+                break;
+            default: 
+                slot = 8 + pieceNumber;
+                break;
         }
+        return (player.getId() * (ID_COUNT / Player.PLAYERS_AMOUNT)) + slot;
     }
 
     //
@@ -0,0 +1,82 @@
+package chess.gameplay.world;
+
+// Helpers for moves packed into a single int, so that move lists can be
+// stored on primitive arrays:
+//   bits 0-5   origin square
+//   bits 6-11  target square
+//   bits 12-14 piece type a pawn promotes to (0 when not promoting)
+//   bits 15-16 special move flag
+public final class Move {
+    // Value used for the absence of a move.
+    public static final int NONE = 0;
+
+    // Special move flags.
+    public static final int FLAG_NORMAL = 0;
+    public static final int FLAG_CASTLING = 1 << 15;
+    public static final int FLAG_EN_PASSANT = 2 << 15;
+    public static final int FLAG_PROMOTION = 3 << 15;
+
+    // Mask used for retrieving the special move flag.
+    private static final int FLAG_MASK = 3 << 15;
+
+    private Move() {
+    }
+
+    public static int create(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int create(int from, int to, int flag) {
+        return from | (to << 6) | flag;
+    }
+
+    public static int createPromotion(int from, int to, int promotionType) {
+        return from | (to << 6) | (promotionType << 12) | FLAG_PROMOTION;
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int promotionType(int move) {
+        return (move >>> 12) & 0x7;
+    }
+
+    public static int flag(int move) {
+        return move & FLAG_MASK;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & FLAG_MASK) == FLAG_PROMOTION;
+    }
+
+    public static boolean isCastling(int move) {
+        return (move & FLAG_MASK) == FLAG_CASTLING;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & FLAG_MASK) == FLAG_EN_PASSANT;
+    }
+
+    //
+    // Retrieves the name of a square, such as "e4".
+    //
+    public static String squareName(int square) {
+        return "" + (char)('a' + Position.columnOf(square)) + (char)('1' + Position.rowOf(square));
+    }
+
+    //
+    // Retrieves the coordinate notation of a move, such as "e7e8q".
+    //
+    public static String toString(int move) {
+        String text = squareName(from(move)) + squareName(to(move));
+        if (isPromotion(move)) {
+            text += "-qrnb".charAt(promotionType(move));
+        }
+        return text;
+    }
+}
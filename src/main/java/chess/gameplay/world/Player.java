@@ -3,6 +3,9 @@ package chess.gameplay.world;
 // Abstraction of a player of the game.
 public class Player   
 {
+    // Amount of players taking part in a match.
+    public static final int PLAYERS_AMOUNT = 2;
+
     // Identifier for the player instance.
     private final int id;
 
@@ -0,0 +1,810 @@
+package chess.gameplay.world;
+
+import java.util.Arrays;
+
+// Primitive representation of the pieces placed on a board: one 64-bit
+// bitboard per piece type and colour, occupancy masks and a square-indexed
+// mailbox. Squares are numbered row * 8 + column, so the first player's
+// king row holds squares 0 to 7.
+public class Position
+{
+    // Colour codes, matching the id of the player owning the pieces.
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    // Piece type codes, matching the ordinals of ChessPiece.PieceType.
+    public static final int KING = 0;
+    public static final int QUEEN = 1;
+    public static final int ROOK = 2;
+    public static final int KNIGHT = 3;
+    public static final int BISHOP = 4;
+    public static final int PAWN = 5;
+
+    // Number of piece types per colour.
+    public static final int PIECE_TYPE_COUNT = 6;
+
+    // Number of piece codes (type and colour combinations).
+    public static final int PIECE_CODE_COUNT = 12;
+
+    // Number of squares of a board.
+    public static final int SQUARE_COUNT = 64;
+
+    // Value stored on the mailbox for empty squares.
+    public static final int NO_PIECE = -1;
+
+    // Material value of each piece type, in hundredths of a pawn.
+    public static final int[] MATERIAL_VALUES = {0, 900, 500, 320, 330, 100};
+
+    // Placement of the pieces at the start of a match, in FEN notation.
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Letters used by FEN for each piece code.
+    private static final String PIECE_LETTERS = "KQRNBPkqrnbp";
+
+    // Squares of the light colour of the board.
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    // Value used for a square which does not exist.
+    public static final int NO_SQUARE = -1;
+
+    // Castling rights, one bit per king side and colour.
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    // Castling rights kept when a piece leaves or reaches each square.
+    private static final int[] CASTLING_MASKS = new int[SQUARE_COUNT];
+
+    static {
+        Arrays.fill(CASTLING_MASKS, ALL_CASTLING);
+        CASTLING_MASKS[square(0, 0)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASKS[square(7, 0)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASKS[square(4, 0)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASKS[square(0, 7)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASKS[square(7, 7)] &= ~BLACK_KINGSIDE;
+        CASTLING_MASKS[square(4, 7)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+    }
+
+    // Bitboard for each piece code.
+    private final long[] pieces = new long[PIECE_CODE_COUNT];
+
+    // Bitboard of the squares occupied by each colour.
+    private final long[] occupancy = new long[2];
+
+    // Piece code located on each square.
+    private final int[] mailbox = new int[SQUARE_COUNT];
+
+    // Square of the king of each colour, or NO_SQUARE.
+    private final int[] kingSquares = {NO_SQUARE, NO_SQUARE};
+
+    // Amount of pieces of each piece code.
+    private final int[] pieceCounts = new int[PIECE_CODE_COUNT];
+
+    // Sum of the material values of the pieces of each colour.
+    private final int[] material = new int[2];
+
+    // Sum of the packed piece-square values of the pieces of each colour,
+    // see PieceSquareTables.
+    private final int[] pieceSquareValues = new int[2];
+
+    // Phase of the game left by the pieces on the board.
+    private int phase;
+
+    // Colour whose turn it is.
+    private int sideToMove = WHITE;
+
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int value) {
+        if (value != sideToMove)
+        {
+            hashKey ^= Zobrist.blackToMove();
+        }
+        sideToMove = value;
+    }
+
+    // Castling rights still available.
+    private int castlingRights;
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public void setCastlingRights(int value) {
+        hashKey ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(value);
+        castlingRights = value;
+    }
+
+    // Square a pawn can be captured on en passant, or NO_SQUARE.
+    private int enPassantSquare = NO_SQUARE;
+
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public void setEnPassantSquare(int value) {
+        hashKey ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.enPassant(value);
+        enPassantSquare = value;
+    }
+
+    // Plies made since the last capture or pawn move.
+    private int halfmoveClock;
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    // Zobrist key of the position, kept up to date on every change.
+    private long hashKey;
+
+    public long getHashKey() {
+        return hashKey;
+    }
+
+    // Zobrist key of the pawns alone, which identifies the pawn structure.
+    private long pawnHashKey;
+
+    public long getPawnHashKey() {
+        return pawnHashKey;
+    }
+
+    // Initial amount of plies the undo stack can hold before growing.
+    private static final int INITIAL_UNDO_CAPACITY = 256;
+
+    // Undo stack: the move made on each ply, the state it replaced packed
+    // as captured piece + 1 (bits 0-3), castling rights (bits 4-7), en
+    // passant square + 1 (bits 8-14) and halfmove clock (bits 15 and up),
+    // and the hash key before the move.
+    private int[] undoMoves = new int[INITIAL_UNDO_CAPACITY];
+    private int[] undoStates = new int[INITIAL_UNDO_CAPACITY];
+    private long[] undoKeys = new long[INITIAL_UNDO_CAPACITY];
+    private int undoCount;
+
+    //
+    // Retrieves the amount of moves which can be unmade.
+    //
+    public int getPlyCount() {
+        return undoCount;
+    }
+
+    //
+    // Initializes an empty position.
+    //
+    public Position() {
+        Arrays.fill(mailbox, NO_PIECE);
+    }
+
+    //
+    // Initializes a position as a copy of the passed one.
+    //
+    public Position(Position other) {
+        copyFrom(other);
+    }
+
+    //
+    // Overwrites this position with the state of the passed one.
+    //
+    public void copyFrom(Position other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, PIECE_CODE_COUNT);
+        System.arraycopy(other.occupancy, 0, occupancy, 0, 2);
+        System.arraycopy(other.mailbox, 0, mailbox, 0, SQUARE_COUNT);
+        System.arraycopy(other.kingSquares, 0, kingSquares, 0, 2);
+        System.arraycopy(other.pieceCounts, 0, pieceCounts, 0, PIECE_CODE_COUNT);
+        System.arraycopy(other.material, 0, material, 0, 2);
+        System.arraycopy(other.pieceSquareValues, 0, pieceSquareValues, 0, 2);
+        phase = other.phase;
+        sideToMove = other.sideToMove;
+        castlingRights = other.castlingRights;
+        enPassantSquare = other.enPassantSquare;
+        hashKey = other.hashKey;
+        pawnHashKey = other.pawnHashKey;
+        halfmoveClock = other.halfmoveClock;
+        if (undoMoves.length < other.undoCount)
+        {
+            growUndoStack(other.undoCount);
+        }
+        System.arraycopy(other.undoMoves, 0, undoMoves, 0, other.undoCount);
+        System.arraycopy(other.undoStates, 0, undoStates, 0, other.undoCount);
+        System.arraycopy(other.undoKeys, 0, undoKeys, 0, other.undoCount);
+        undoCount = other.undoCount;
+    }
+
+    //
+    // Creates a position from its Forsyth-Edwards Notation. The number of
+    // the full move is not kept, so it is ignored.
+    //
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        if (fields.length < 4)
+        {
+            throw new IllegalArgumentException("'fen' holds an invalid value: " + fen);
+        }
+
+        Position position = new Position();
+        int column = 0;
+        int row = Board.CHESS_ROW_COUNT - 1;
+        for (char symbol : fields[0].toCharArray())
+        {
+            if (symbol == '/')
+            {
+                row--;
+                column = 0;
+            }
+            else if ((symbol >= '1') && (symbol <= '8'))
+            {
+                column += symbol - '0';
+            }
+            else
+            {
+                int piece = PIECE_LETTERS.indexOf(symbol);
+                if ((piece < 0) || (column >= Board.CHESS_COLUMN_COUNT) || (row < 0))
+                {
+                    throw new IllegalArgumentException("'fen' holds an invalid value: " + fen);
+                }
+                position.putPiece(piece, square(column, row));
+                column++;
+            }
+        }
+
+        position.setSideToMove(fields[1].equals("b") ? BLACK : WHITE);
+        int rights = 0;
+        for (char symbol : fields[2].toCharArray())
+        {
+            switch (symbol)
+            {
+                case 'K':
+                    rights |= WHITE_KINGSIDE;
+                    break;
+                case 'Q':
+                    rights |= WHITE_QUEENSIDE;
+                    break;
+                case 'k':
+                    rights |= BLACK_KINGSIDE;
+                    break;
+                case 'q':
+                    rights |= BLACK_QUEENSIDE;
+                    break;
+                default:
+                    break;
+            }
+        }
+        position.setCastlingRights(rights);
+
+        if (!fields[3].equals("-"))
+        {
+            position.setEnPassantSquare(square(fields[3].charAt(0) - 'a', fields[3].charAt(1) - '1'));
+        }
+
+        if (fields.length > 4)
+        {
+            position.halfmoveClock = Integer.parseInt(fields[4]);
+        }
+        return position;
+    }
+
+    //
+    // Retrieves the Forsyth-Edwards Notation of the position. The number of
+    // the full move is counted from the plies played on the position.
+    //
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int row = Board.CHESS_ROW_COUNT - 1; row >= 0; row--)
+        {
+            int emptySquares = 0;
+            for (int column = 0; column < Board.CHESS_COLUMN_COUNT; column++)
+            {
+                int piece = getPieceAt(square(column, row));
+                if (piece == NO_PIECE)
+                {
+                    emptySquares++;
+                    continue;
+                }
+                if (emptySquares > 0)
+                {
+                    fen.append(emptySquares);
+                    emptySquares = 0;
+                }
+                fen.append(PIECE_LETTERS.charAt(piece));
+            }
+            if (emptySquares > 0)
+            {
+                fen.append(emptySquares);
+            }
+            if (row > 0)
+            {
+                fen.append('/');
+            }
+        }
+
+        fen.append((getSideToMove() == WHITE) ? " w " : " b ");
+        int rights = getCastlingRights();
+        if (rights == 0)
+        {
+            fen.append('-');
+        }
+        else
+        {
+            fen.append(((rights & WHITE_KINGSIDE) != 0) ? "K" : "")
+                    .append(((rights & WHITE_QUEENSIDE) != 0) ? "Q" : "")
+                    .append(((rights & BLACK_KINGSIDE) != 0) ? "k" : "")
+                    .append(((rights & BLACK_QUEENSIDE) != 0) ? "q" : "");
+        }
+        fen.append(' ').append((getEnPassantSquare() == NO_SQUARE) ? "-" : Move.squareName(getEnPassantSquare()));
+        fen.append(' ').append(halfmoveClock).append(' ').append(1 + getPlyCount() / 2);
+        return fen.toString();
+    }
+
+    //
+    // Places the piece code on an empty square.
+    //
+    public void putPiece(int piece, int square) {
+        long bit = 1L << square;
+        pieces[piece] |= bit;
+        occupancy[colorOf(piece)] |= bit;
+        mailbox[square] = piece;
+        hashKey ^= Zobrist.pieceSquare(piece, square);
+        if (isPawnKeyPiece(piece))
+        {
+            pawnHashKey ^= Zobrist.pieceSquare(piece, square);
+        }
+        pieceCounts[piece]++;
+        material[colorOf(piece)] += MATERIAL_VALUES[typeOf(piece)];
+        pieceSquareValues[colorOf(piece)] += PieceSquareTables.packedValue(piece, square);
+        phase += PieceSquareTables.phaseWeight(piece);
+        if (typeOf(piece) == KING)
+        {
+            kingSquares[colorOf(piece)] = square;
+        }
+    }
+
+    //
+    // Removes the piece located on the square, returning its code.
+    //
+    public int removePiece(int square) {
+        int piece = mailbox[square];
+        if (piece != NO_PIECE)
+        {
+            long bit = 1L << square;
+            pieces[piece] &= ~bit;
+            occupancy[colorOf(piece)] &= ~bit;
+            mailbox[square] = NO_PIECE;
+            hashKey ^= Zobrist.pieceSquare(piece, square);
+            if (isPawnKeyPiece(piece))
+            {
+                pawnHashKey ^= Zobrist.pieceSquare(piece, square);
+            }
+            pieceCounts[piece]--;
+            material[colorOf(piece)] -= MATERIAL_VALUES[typeOf(piece)];
+            pieceSquareValues[colorOf(piece)] -= PieceSquareTables.packedValue(piece, square);
+            phase -= PieceSquareTables.phaseWeight(piece);
+            if (kingSquares[colorOf(piece)] == square)
+            {
+                kingSquares[colorOf(piece)] = NO_SQUARE;
+            }
+        }
+        return piece;
+    }
+
+    //
+    // Moves the piece located on 'from' towards the empty square 'to'.
+    //
+    public void movePiece(int from, int to) {
+        int piece = mailbox[from];
+        long bits = (1L << from) | (1L << to);
+        pieces[piece] ^= bits;
+        occupancy[colorOf(piece)] ^= bits;
+        mailbox[from] = NO_PIECE;
+        mailbox[to] = piece;
+        hashKey ^= Zobrist.pieceSquare(piece, from) ^ Zobrist.pieceSquare(piece, to);
+        if (isPawnKeyPiece(piece))
+        {
+            pawnHashKey ^= Zobrist.pieceSquare(piece, from) ^ Zobrist.pieceSquare(piece, to);
+        }
+        pieceSquareValues[colorOf(piece)] += PieceSquareTables.packedValue(piece, to)
+                - PieceSquareTables.packedValue(piece, from);
+        if (typeOf(piece) == KING)
+        {
+            kingSquares[colorOf(piece)] = to;
+        }
+    }
+
+    //
+    // Plays a move generated for the side to move, including the rook of
+    // a castling, the pawn captured en passant and promotions, and passes
+    // the turn to the other colour. The replaced state is pushed on the
+    // undo stack, so that unmakeMove can restore it.
+    //
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = sideToMove;
+        int piece = mailbox[from];
+
+        int capturedSquare = Move.isEnPassant(move) ? to + ((us == WHITE) ? -8 : 8) : to;
+        int captured = mailbox[capturedSquare];
+        pushUndo(move, (captured + 1) | (castlingRights << 4) | ((enPassantSquare + 1) << 8) | (halfmoveClock << 15));
+        halfmoveClock = ((captured != NO_PIECE) || (typeOf(piece) == PAWN)) ? 0 : halfmoveClock + 1;
+        if (captured != NO_PIECE)
+        {
+            removePiece(capturedSquare);
+        }
+        movePiece(from, to);
+
+        if (Move.isPromotion(move))
+        {
+            removePiece(to);
+            putPiece(pieceCode(us, Move.promotionType(move)), to);
+        }
+        else if (Move.isCastling(move))
+        {
+            if (to > from)
+            {
+                movePiece(to + 1, to - 1);
+            }
+            else
+            {
+                movePiece(to - 2, to + 1);
+            }
+        }
+
+        // A double pawn push only leaves an en passant square behind when
+        // an enemy pawn can actually take it.
+        hashKey ^= Zobrist.enPassant(enPassantSquare);
+        enPassantSquare = NO_SQUARE;
+        if ((typeOf(piece) == PAWN) && (Math.abs(to - from) == 16))
+        {
+            int passedSquare = (from + to) >>> 1;
+            if ((AttackTables.pawnAttacks(us, passedSquare) & getPieces(us ^ 1, PAWN)) != 0)
+            {
+                enPassantSquare = passedSquare;
+                hashKey ^= Zobrist.enPassant(passedSquare);
+            }
+        }
+
+        int rights = castlingRights & CASTLING_MASKS[from] & CASTLING_MASKS[to];
+        hashKey ^= Zobrist.castling(castlingRights) ^ Zobrist.castling(rights);
+        castlingRights = rights;
+        sideToMove = us ^ 1;
+        hashKey ^= Zobrist.blackToMove();
+    }
+
+    //
+    // Takes back the last move made, returning it.
+    //
+    public int unmakeMove() {
+        undoCount--;
+        int move = undoMoves[undoCount];
+        int state = undoStates[undoCount];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int us = sideToMove ^ 1;
+
+        if (Move.isPromotion(move))
+        {
+            removePiece(to);
+            putPiece(pieceCode(us, PAWN), to);
+        }
+        else if (Move.isCastling(move))
+        {
+            if (to > from)
+            {
+                movePiece(to - 1, to + 1);
+            }
+            else
+            {
+                movePiece(to + 1, to - 2);
+            }
+        }
+        movePiece(to, from);
+
+        int captured = (state & 0xF) - 1;
+        if (captured != NO_PIECE)
+        {
+            putPiece(captured, Move.isEnPassant(move) ? to + ((us == WHITE) ? -8 : 8) : to);
+        }
+
+        castlingRights = (state >>> 4) & 0xF;
+        enPassantSquare = ((state >>> 8) & 0x7F) - 1;
+        halfmoveClock = state >>> 15;
+        sideToMove = us;
+        hashKey = undoKeys[undoCount];
+        return move;
+    }
+
+    //
+    // Passes the turn without moving, as searches do for measuring how good
+    // a position is even for the side to move. Repetitions are not looked
+    // for across a null move, so the halfmove clock starts over.
+    //
+    public void makeNullMove() {
+        pushUndo(Move.NONE, (castlingRights << 4) | ((enPassantSquare + 1) << 8) | (halfmoveClock << 15));
+        halfmoveClock = 0;
+        hashKey ^= Zobrist.enPassant(enPassantSquare) ^ Zobrist.blackToMove();
+        enPassantSquare = NO_SQUARE;
+        sideToMove ^= 1;
+    }
+
+    //
+    // Takes back the null move made last.
+    //
+    public void unmakeNullMove() {
+        undoCount--;
+        int state = undoStates[undoCount];
+        enPassantSquare = ((state >>> 8) & 0x7F) - 1;
+        halfmoveClock = state >>> 15;
+        sideToMove ^= 1;
+        hashKey = undoKeys[undoCount];
+    }
+
+    //
+    // Retrieves the piece captured by the last move made, or NO_PIECE.
+    //
+    public int getLastCapturedPiece() {
+        return (undoStates[undoCount - 1] & 0xF) - 1;
+    }
+
+    //
+    // Retrieves the last move made, or Move.NONE on a new position.
+    //
+    public int getLastMove() {
+        return (undoCount == 0) ? Move.NONE : undoMoves[undoCount - 1];
+    }
+
+    //
+    // Stores the move and the state it replaces on the undo stack.
+    //
+    private void pushUndo(int move, int state) {
+        if (undoCount == undoMoves.length)
+        {
+            growUndoStack(undoCount * 2);
+        }
+        undoMoves[undoCount] = move;
+        undoStates[undoCount] = state;
+        undoKeys[undoCount] = hashKey;
+        undoCount++;
+    }
+
+    private void growUndoStack(int capacity) {
+        undoMoves = Arrays.copyOf(undoMoves, capacity);
+        undoStates = Arrays.copyOf(undoStates, capacity);
+        undoKeys = Arrays.copyOf(undoKeys, capacity);
+    }
+
+    //
+    // Calculates the hash key from scratch, which must always match the
+    // incrementally updated one.
+    //
+    public long calculateHashKey() {
+        long key = Zobrist.castling(castlingRights) ^ Zobrist.enPassant(enPassantSquare);
+        if (sideToMove == BLACK)
+        {
+            key ^= Zobrist.blackToMove();
+        }
+        for (int square = 0; square < SQUARE_COUNT; square++)
+        {
+            if (mailbox[square] != NO_PIECE)
+            {
+                key ^= Zobrist.pieceSquare(mailbox[square], square);
+            }
+        }
+        return key;
+    }
+
+    //
+    // Calculates the pawn hash key from scratch, which must always match
+    // the incrementally updated one.
+    //
+    public long calculatePawnHashKey() {
+        long key = 0;
+        for (int square = 0; square < SQUARE_COUNT; square++)
+        {
+            if ((mailbox[square] != NO_PIECE) && isPawnKeyPiece(mailbox[square]))
+            {
+                key ^= Zobrist.pieceSquare(mailbox[square], square);
+            }
+        }
+        return key;
+    }
+
+    private static boolean isPawnKeyPiece(int piece) {
+        return typeOf(piece) == PAWN;
+    }
+
+    //
+    // Indicates whether or not the position has already been reached since
+    // the last capture or pawn move, with the same side on turn.
+    //
+    public boolean isRepetition() {
+        int oldest = Math.max(0, undoCount - halfmoveClock);
+        for (int ply = undoCount - 2; ply >= oldest; ply -= 2)
+        {
+            if (undoKeys[ply] == hashKey)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //
+    // Indicates whether or not the position has already been reached twice
+    // since the last capture or pawn move, with the same side on turn,
+    // which draws the game by the threefold repetition rule.
+    //
+    public boolean isThreefoldRepetition() {
+        int oldest = Math.max(0, undoCount - halfmoveClock);
+        int repetitions = 0;
+        for (int ply = undoCount - 2; ply >= oldest; ply -= 2)
+        {
+            if ((undoKeys[ply] == hashKey) && (++repetitions == 2))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //
+    // Indicates whether or not the position is drawn by repetition, by the
+    // fifty-move rule or by insufficient material. A single repetition is
+    // enough, as searches assume the players would repeat again.
+    //
+    public boolean isDraw() {
+        return (halfmoveClock >= 100) || isRepetition() || isInsufficientMaterial();
+    }
+
+    //
+    // Indicates whether or not the rules draw the game on the position: by
+    // threefold repetition, by the fifty-move rule or by insufficient
+    // material.
+    //
+    public boolean isDrawnByRules() {
+        return (halfmoveClock >= 100) || isThreefoldRepetition() || isInsufficientMaterial();
+    }
+
+    //
+    // Indicates whether or not the king of the side to move is attacked.
+    //
+    public boolean isInCheck() {
+        int king = getKingSquare(sideToMove);
+        return (king != NO_SQUARE) && AttackTables.isSquareAttacked(this, king, sideToMove ^ 1);
+    }
+
+    //
+    // Retrieves the piece code located on the square.
+    //
+    public int getPieceAt(int square) {
+        return mailbox[square];
+    }
+
+    //
+    // Retrieves the bitboard of the passed piece code.
+    //
+    public long getPieces(int piece) {
+        return pieces[piece];
+    }
+
+    //
+    // Retrieves the bitboard of a piece type of a certain colour.
+    //
+    public long getPieces(int color, int type) {
+        return pieces[pieceCode(color, type)];
+    }
+
+    //
+    // Retrieves the squares occupied by a colour.
+    //
+    public long getOccupancy(int color) {
+        return occupancy[color];
+    }
+
+    //
+    // Retrieves the squares occupied by any piece.
+    //
+    public long getAllOccupancy() {
+        return occupancy[WHITE] | occupancy[BLACK];
+    }
+
+    //
+    // Retrieves the square of the king of a colour, or NO_SQUARE.
+    //
+    public int getKingSquare(int color) {
+        return kingSquares[color];
+    }
+
+    //
+    // Retrieves the amount of pieces of a type of a certain colour.
+    //
+    public int getPieceCount(int color, int type) {
+        return pieceCounts[pieceCode(color, type)];
+    }
+
+    //
+    // Retrieves the sum of the packed piece-square values of a colour's
+    // pieces, see PieceSquareTables.
+    //
+    public int getPieceSquareValue(int color) {
+        return pieceSquareValues[color];
+    }
+
+    //
+    // Retrieves the phase of the game, from PieceSquareTables.MAX_PHASE
+    // with every piece on the board down to 0 with pawns and kings alone.
+    // Promotions may push it above the maximum.
+    //
+    public int getPhase() {
+        return phase;
+    }
+
+    //
+    // Retrieves the sum of the material values of a colour's pieces.
+    //
+    public int getMaterial(int color) {
+        return material[color];
+    }
+
+    //
+    // Indicates whether or not neither colour has enough material left to
+    // give checkmate: kings with at most one knight or bishop in total, or
+    // with bishops standing on squares of a single colour.
+    //
+    public boolean isInsufficientMaterial() {
+        for (int color = WHITE; color <= BLACK; color++)
+        {
+            if ((getPieceCount(color, PAWN) + getPieceCount(color, ROOK) + getPieceCount(color, QUEEN)) > 0)
+            {
+                return false;
+            }
+        }
+
+        int knights = getPieceCount(WHITE, KNIGHT) + getPieceCount(BLACK, KNIGHT);
+        long bishops = getPieces(WHITE, BISHOP) | getPieces(BLACK, BISHOP);
+        if ((knights + Long.bitCount(bishops)) <= 1)
+        {
+            return true;
+        }
+        return (knights == 0) && (((bishops & LIGHT_SQUARES) == 0) || ((bishops & ~LIGHT_SQUARES) == 0));
+    }
+
+    public static int square(int column, int row) {
+        return (row << 3) | column;
+    }
+
+    public static int columnOf(int square) {
+        return square & 7;
+    }
+
+    public static int rowOf(int square) {
+        return square >>> 3;
+    }
+
+    public static int pieceCode(int color, int type) {
+        return (color * PIECE_TYPE_COUNT) + type;
+    }
+
+    public static int colorOf(int piece) {
+        return (piece >= PIECE_TYPE_COUNT) ? BLACK : WHITE;
+    }
+
+    public static int typeOf(int piece) {
+        return (piece >= PIECE_TYPE_COUNT) ? piece - PIECE_TYPE_COUNT : piece;
+    }
+
+    //
+    // Retrieves the colour code of the pieces of a player.
+    //
+    public static int colorOf(Player player) {
+        return (player.getPiecesColor() == ChessPiece.PieceColor.WHITE) ? WHITE : BLACK;
+    }
+
+    //
+    // Retrieves the piece code describing a chess piece.
+    //
+    public static int codeOf(ChessPiece piece) {
+        return pieceCode(colorOf(piece.getOwner()), piece.getType().ordinal());
+    }
+}
@@ -0,0 +1,55 @@
+package chess.gameplay.world;
+
+import java.util.SplittableRandom;
+
+// Random keys combined by XOR into the hash key of a position: one per
+// piece code and square, one for the second player being on turn, one per
+// set of castling rights and one per column of an en passant square.
+public final class Zobrist {
+    // Seed of the keys, fixed so that hash keys are the same on every run.
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private static final long[][] PIECE_SQUARE = new long[Position.PIECE_CODE_COUNT][Position.SQUARE_COUNT];
+    private static final long[] CASTLING = new long[Position.ALL_CASTLING + 1];
+    private static final long[] EN_PASSANT_COLUMN = new long[Board.CHESS_COLUMN_COUNT];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int square = 0; square < Position.SQUARE_COUNT; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        // No castling rights leave the key untouched.
+        for (int rights = 1; rights <= Position.ALL_CASTLING; rights++) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int column = 0; column < Board.CHESS_COLUMN_COUNT; column++) {
+            EN_PASSANT_COLUMN[column] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pieceSquare(int piece, int square) {
+        return PIECE_SQUARE[piece][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    //
+    // Retrieves the key of an en passant square, or 0 for NO_SQUARE.
+    //
+    public static long enPassant(int square) {
+        return (square == Position.NO_SQUARE) ? 0 : EN_PASSANT_COLUMN[Position.columnOf(square)];
+    }
+
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
@@ -0,0 +1,250 @@
+package chess.net;
+
+import chess.gameplay.MoveGenerator;
+import chess.gameplay.world.Position;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+// Load generator for the game server: opens many loopback connections on
+// a single selector thread, has each one join matches and answer every
+// turn with a random legal move, and measures the round trip between
+// sending a move and receiving it back as played.
+public class GameLoadClient {
+    // Plies after which a client leaves its match, so that random games
+    // which would never end are replaced by new ones.
+    private static final int MAX_GAME_PLIES = 300;
+
+    private final InetSocketAddress address;
+    private final Selector selector;
+    private final Random random = new Random(1);
+    private final int[] moves = new int[MoveGenerator.MAX_MOVES];
+
+    // Round trip of every move, in nanoseconds.
+    private long[] latencies = new long[1 << 16];
+    private int latencyCount;
+
+    // Outcome counters.
+    private long finishedGames;
+    private long rejectedMoves;
+    private long reconnections;
+
+    public GameLoadClient(String host, int port) throws IOException {
+        address = new InetSocketAddress(host, port);
+        selector = Selector.open();
+    }
+
+    //
+    // Plays on the passed amount of connections for the passed seconds,
+    // then prints the throughput and the latency percentiles.
+    //
+    public void run(int connections, int seconds) throws IOException {
+        for (int index = 0; index < connections; index++) {
+            connect();
+        }
+
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            selector.select(Math.max(1, (end - now) / 1_000_000));
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isValid()) {
+                    ((Client)key.attachment()).handle(key);
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        report(connections, elapsed);
+    }
+
+    private void connect() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.connect(address);
+        Client client = new Client(channel);
+        channel.register(selector, SelectionKey.OP_CONNECT, client);
+    }
+
+    private void recordLatency(long nanos) {
+        if (latencyCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        latencies[latencyCount++] = nanos;
+    }
+
+    private void report(int connections, long elapsedNanos) {
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        System.out.printf("%d connections, %d moves in %.1f s: %.0f moves/s, %d games finished,"
+                        + " %d rejected moves, %d games left%n", connections, latencyCount, elapsedNanos / 1e9,
+                latencyCount * 1e9 / elapsedNanos, finishedGames, rejectedMoves, reconnections);
+        if (sorted.length > 0) {
+            System.out.printf("move round trip: p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                    percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.99) / 1e3, sorted[sorted.length - 1] / 1e3);
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int)(sorted.length * fraction))];
+    }
+
+    //
+    // Connection playing as a remote player, keeping its own copy of the
+    // position of its match.
+    //
+    private class Client {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+        private final ArrayDeque<ByteBuffer> outgoing = new ArrayDeque<>();
+        private SelectionKey key;
+
+        private int matchId = -1;
+        private int color;
+        private Position position;
+        private long moveSentNanos;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void handle(SelectionKey selectedKey) throws IOException {
+            key = selectedKey;
+            if (key.isConnectable()) {
+                channel.finishConnect();
+                key.interestOps(SelectionKey.OP_READ);
+                send(GameProtocol.join());
+                return;
+            }
+            if (key.isWritable()) {
+                flush();
+            }
+            if (key.isReadable()) {
+                read();
+            }
+        }
+
+        private void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                key.cancel();
+                channel.close();
+                return;
+            }
+            readBuffer.flip();
+            int length = 0;
+            // Leaving a match closes the channel, dropping the frames after.
+            while (channel.isOpen() && ((length = GameProtocol.nextFrameLength(readBuffer)) > 0)) {
+                handleFrame(readBuffer.position());
+                readBuffer.position(readBuffer.position() + length);
+            }
+            readBuffer.compact();
+        }
+
+        private void handleFrame(int offset) throws IOException {
+            int frameMatchId = GameProtocol.matchIdOf(readBuffer, offset);
+            switch (readBuffer.get(offset)) {
+                case GameProtocol.MATCH_STARTED:
+                    matchId = frameMatchId;
+                    color = readBuffer.get(offset + 5);
+                    position = Position.fromFen(Position.START_FEN);
+                    playIfOnTurn();
+                    break;
+                case GameProtocol.MOVE_PLAYED:
+                    if (frameMatchId != matchId) {
+                        break;
+                    }
+                    boolean ownMove = position.getSideToMove() == color;
+                    applyWireMove(GameProtocol.wireMoveOf(readBuffer, offset));
+                    if (ownMove) {
+                        recordLatency(System.nanoTime() - moveSentNanos);
+                    }
+                    playIfOnTurn();
+                    break;
+                case GameProtocol.MOVE_REJECTED:
+                    rejectedMoves++;
+                    break;
+                case GameProtocol.MATCH_ENDED:
+                    if (frameMatchId == matchId) {
+                        matchId = -1;
+                        if (color == Position.WHITE) {
+                            finishedGames++;
+                        }
+                        send(GameProtocol.join());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void applyWireMove(int wireMove) {
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+            for (int index = 0; index < moveCount; index++) {
+                if (GameProtocol.matches(moves[index], wireMove)) {
+                    position.makeMove(moves[index]);
+                    return;
+                }
+            }
+            throw new IllegalStateException("The server played an illegal move: " + wireMove);
+        }
+
+        //
+        // Sends a random legal move when it is the turn of the client, or
+        // leaves a match which has gone on for too long.
+        //
+        private void playIfOnTurn() throws IOException {
+            if (position.getSideToMove() != color) {
+                return;
+            }
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+            if (moveCount == 0) {
+                return;
+            }
+            if (position.getPlyCount() >= MAX_GAME_PLIES) {
+                // Leaving abandons the match; a new connection replaces it.
+                reconnections++;
+                key.cancel();
+                channel.close();
+                connect();
+                return;
+            }
+            moveSentNanos = System.nanoTime();
+            send(GameProtocol.move(matchId, moves[random.nextInt(moveCount)]));
+        }
+
+        private void send(ByteBuffer frame) throws IOException {
+            outgoing.add(frame);
+            flush();
+        }
+
+        private void flush() throws IOException {
+            ByteBuffer frame;
+            while ((frame = outgoing.peek()) != null) {
+                channel.write(frame);
+                if (frame.hasRemaining()) {
+                    key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                outgoing.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+}
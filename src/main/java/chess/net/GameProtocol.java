@@ -0,0 +1,224 @@
+package chess.net;
+
+import chess.gameplay.world.Move;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Binary framing spoken between the game server and its clients. Every
+// frame starts with its type byte, which fixes its length, so that frames
+// need no length prefix. Numbers are big endian.
+//
+//   JOIN            type                                          1 byte
+//   MOVE            type, match id (4), move (2)                  7 bytes
+//   SPECTATE        type, match id (4)                            5 bytes
+//   MATCH_STARTED   type, match id (4), colour (1)                6 bytes
+//   MOVE_PLAYED     type, match id (4), move (2), clock delta (4) 11 bytes
+//   MOVE_REJECTED   type, match id (4), move (2)                  7 bytes
+//   MATCH_ENDED     type, match id (4), result type (1)           6 bytes
+//
+// Spectators receive the moves in batches, which are the only frames of
+// variable length, told by the two bytes after the type:
+//
+//   MOVE_BATCH      type, length (2), match id (4), sequence (4), count (1),
+//                   count times: move (2), clock delta (4)
+//   SNAPSHOT        type, length (2), match id (4), sequence (4), FEN
+//
+// The sequence is the number of the first move of the batch within the
+// match, or the number of moves played before the snapshot.
+//
+// The result type of MATCH_ENDED is one of MatchResult, or ABORTED for a
+// match the server gave up on after a failure.
+//
+// Moves take the 15 low bits of Move: origin, target and promotion type.
+// The special move flag is left out, since the rules tell it apart. The
+// clock delta is the time the mover spent on the move, in milliseconds.
+public final class GameProtocol {
+    // Frames sent by clients.
+    public static final byte JOIN = 1;
+    public static final byte MOVE = 2;
+    public static final byte SPECTATE = 3;
+
+    // Frames sent by the server.
+    public static final byte MATCH_STARTED = 16;
+    public static final byte MOVE_PLAYED = 17;
+    public static final byte MOVE_REJECTED = 18;
+    public static final byte MATCH_ENDED = 19;
+    public static final byte MOVE_BATCH = 20;
+    public static final byte SNAPSHOT = 21;
+
+    // Result type of a match ended without a result.
+    public static final int ABORTED = 255;
+
+    // Moves a single batch may carry.
+    public static final int MAX_BATCH_MOVES = 255;
+
+    // Longest frame, which the read buffers of spectators must fit.
+    public static final int MAX_FRAME_LENGTH = 12 + MAX_BATCH_MOVES * 6;
+
+    // Length returned for the frames whose length follows their type, and
+    // the bytes of the type and the length, below which a stated length
+    // is invalid.
+    private static final int VARIABLE_LENGTH = 0;
+    private static final int VARIABLE_HEADER_LENGTH = 3;
+
+    // Bits of a Move sent on the wire.
+    private static final int WIRE_MOVE_MASK = 0x7FFF;
+
+    private GameProtocol() {
+    }
+
+    //
+    // Retrieves the length of the frames of the type, 0 when it varies, or
+    // -1 when the type is unknown.
+    //
+    public static int frameLength(byte type) {
+        switch (type) {
+            case JOIN:
+                return 1;
+            case SPECTATE:
+                return 5;
+            case MATCH_STARTED:
+            case MATCH_ENDED:
+                return 6;
+            case MOVE:
+            case MOVE_REJECTED:
+                return 7;
+            case MOVE_PLAYED:
+                return 11;
+            case MOVE_BATCH:
+            case SNAPSHOT:
+                return VARIABLE_LENGTH;
+            default:
+                return -1;
+        }
+    }
+
+    //
+    // Indicates whether or not clients may send frames of the type. The
+    // server closes the connections sending any other.
+    //
+    public static boolean isClientFrame(byte type) {
+        return (type == JOIN) || (type == MOVE) || (type == SPECTATE);
+    }
+
+    //
+    // Retrieves the length of the complete frame at the position of the
+    // buffer, 0 when it has not been fully received, or -1 when its type
+    // is unknown or the length it states is shorter than its header.
+    //
+    public static int nextFrameLength(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return 0;
+        }
+        int length = frameLength(buffer.get(buffer.position()));
+        if (length == VARIABLE_LENGTH) {
+            if (buffer.remaining() < VARIABLE_HEADER_LENGTH) {
+                return 0;
+            }
+            length = buffer.getShort(buffer.position() + 1) & 0xFFFF;
+            if (length < VARIABLE_HEADER_LENGTH) {
+                return -1;
+            }
+        }
+        return ((length > 0) && (buffer.remaining() < length)) ? 0 : length;
+    }
+
+    public static int toWire(int move) {
+        return move & WIRE_MOVE_MASK;
+    }
+
+    //
+    // Tells whether or not the move is the one sent on the wire.
+    //
+    public static boolean matches(int move, int wireMove) {
+        return toWire(move) == wireMove;
+    }
+
+    public static ByteBuffer join() {
+        return ByteBuffer.allocate(1).put(JOIN).flip();
+    }
+
+    public static ByteBuffer move(int matchId, int move) {
+        return ByteBuffer.allocate(7).put(MOVE).putInt(matchId).putShort((short)toWire(move)).flip();
+    }
+
+    public static ByteBuffer spectate(int matchId) {
+        return ByteBuffer.allocate(5).put(SPECTATE).putInt(matchId).flip();
+    }
+
+    //
+    // Encodes the count moves of the ring of events starting at the
+    // sequence, each one packed as by packEvent.
+    //
+    public static ByteBuffer moveBatch(int matchId, long sequence, long[] events, int mask, int count) {
+        int length = 12 + count * 6;
+        ByteBuffer frame = ByteBuffer.allocate(length).put(MOVE_BATCH).putShort((short)length).putInt(matchId)
+                .putInt((int)sequence).put((byte)count);
+        for (int index = 0; index < count; index++) {
+            long event = events[(int)((sequence + index) & mask)];
+            frame.putShort((short)(event >>> 32)).putInt((int)event);
+        }
+        return frame.flip();
+    }
+
+    public static ByteBuffer snapshot(int matchId, long sequence, String fen) {
+        byte[] text = fen.getBytes(StandardCharsets.US_ASCII);
+        int length = 11 + text.length;
+        return ByteBuffer.allocate(length).put(SNAPSHOT).putShort((short)length).putInt(matchId)
+                .putInt((int)sequence).put(text).flip();
+    }
+
+    //
+    // Packs a move and its clock delta into a single long, as kept by the
+    // spectator channels.
+    //
+    public static long packEvent(int move, int clockDeltaMillis) {
+        return ((long)toWire(move) << 32) | (clockDeltaMillis & 0xFFFFFFFFL);
+    }
+
+    public static ByteBuffer matchStarted(int matchId, int color) {
+        return ByteBuffer.allocate(6).put(MATCH_STARTED).putInt(matchId).put((byte)color).flip();
+    }
+
+    public static ByteBuffer movePlayed(int matchId, int move, int clockDeltaMillis) {
+        return ByteBuffer.allocate(11).put(MOVE_PLAYED).putInt(matchId).putShort((short)toWire(move))
+                .putInt(clockDeltaMillis).flip();
+    }
+
+    public static ByteBuffer moveRejected(int matchId, int wireMove) {
+        return ByteBuffer.allocate(7).put(MOVE_REJECTED).putInt(matchId).putShort((short)wireMove).flip();
+    }
+
+    public static ByteBuffer matchEnded(int matchId, int resultType) {
+        return ByteBuffer.allocate(6).put(MATCH_ENDED).putInt(matchId).put((byte)resultType).flip();
+    }
+
+    //
+    // Reads the match id of the frame starting at the offset.
+    //
+    public static int matchIdOf(ByteBuffer buffer, int offset) {
+        byte type = buffer.get(offset);
+        return buffer.getInt(offset + ((frameLength(type) == VARIABLE_LENGTH) ? 3 : 1));
+    }
+
+    //
+    // Reads the wire move of a MOVE, MOVE_PLAYED or MOVE_REJECTED frame
+    // starting at the offset.
+    //
+    public static int wireMoveOf(ByteBuffer buffer, int offset) {
+        return buffer.getShort(offset + 5) & WIRE_MOVE_MASK;
+    }
+
+    public static int originOf(int wireMove) {
+        return Move.from(wireMove);
+    }
+
+    public static int targetOf(int wireMove) {
+        return Move.to(wireMove);
+    }
+
+    public static int promotionTypeOf(int wireMove) {
+        return Move.promotionType(wireMove);
+    }
+}
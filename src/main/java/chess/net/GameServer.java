@@ -0,0 +1,502 @@
+package chess.net;
+
+import chess.gameplay.GameController;
+import chess.gameplay.Match;
+import chess.gameplay.MatchRegistry;
+import chess.gameplay.MatchResult;
+import chess.gameplay.PieceDisplacement;
+import chess.gameplay.RejectedMovementException;
+import chess.gameplay.world.ChessPiece;
+import chess.gameplay.world.Player;
+import chess.gameplay.world.Position;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Server hosting matches between remote players, who speak GameProtocol
+// over TCP. Every socket is served by a single selector thread, which
+// never runs the rules: incoming moves are turned into PieceDisplacements
+// and queued on the authoritative Match through the MatchRegistry, which
+// validates and applies them on the thread of the match. Frames produced
+// on those threads are queued on the connection and written back by the
+// selector thread.
+//
+// Players are paired in the order they join. The first of a pair plays
+// white. A player disconnecting abandons its match.
+//
+// Any connection may watch a match being played. The thread of the match
+// publishes its moves on a SpectatorChannel, and a SpectatorBroadcaster
+// sends them to the spectators in batches. Spectators whose connection
+// has too much left to write are skipped until it drains.
+public class GameServer {
+    // Bytes buffered per connection for reading.
+    private static final int READ_BUFFER_BYTES = 512;
+
+    // Bytes waiting to be written to a spectator above which it is sent
+    // nothing more until they are.
+    private static final int SPECTATOR_BACKLOG_BYTES = 64 * 1024;
+
+    private final MatchRegistry registry;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final SpectatorBroadcaster broadcaster = new SpectatorBroadcaster();
+
+    // Connections with frames waiting to be written, and whether the
+    // selector has already been woken up to write them.
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupRequested = new AtomicBoolean();
+
+    // Controllers of the matches being played, by match id.
+    private final ConcurrentHashMap<Integer, RemoteGameController> controllers = new ConcurrentHashMap<>();
+
+    // Player who joined and waits for an opponent, only touched by the
+    // selector thread.
+    private Connection waitingPlayer;
+
+    private volatile boolean running;
+
+    public GameServer(MatchRegistry registry, int port) throws IOException {
+        this.registry = registry;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    //
+    // Retrieves the amount of matches being played on the server.
+    //
+    public int getActiveMatchCount() {
+        return controllers.size();
+    }
+
+    //
+    // Serves the connections on the calling thread until stopped.
+    //
+    public void run() throws IOException {
+        running = true;
+        broadcaster.start();
+        while (running) {
+            selector.select();
+            wakeupRequested.set(false);
+            Connection connection;
+            while ((connection = pendingWrites.poll()) != null) {
+                connection.flush();
+            }
+
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                    continue;
+                }
+                Connection selected = (Connection)key.attachment();
+                if (key.isWritable()) {
+                    selected.flush();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    selected.read();
+                }
+            }
+        }
+
+        broadcaster.stop();
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    //
+    // Makes run return, from any thread.
+    //
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    //
+    // Handles a complete frame received on the connection.
+    //
+    private void handleFrame(Connection connection, ByteBuffer buffer, int offset) {
+        switch (buffer.get(offset)) {
+            case GameProtocol.JOIN:
+                join(connection);
+                break;
+            case GameProtocol.MOVE:
+                submitMove(connection, GameProtocol.matchIdOf(buffer, offset), GameProtocol.wireMoveOf(buffer, offset));
+                break;
+            case GameProtocol.SPECTATE:
+                spectate(connection, GameProtocol.matchIdOf(buffer, offset));
+                break;
+            default:
+                // Connection.read only passes the frames of clients.
+                break;
+        }
+    }
+
+    //
+    // Pairs the connection with the player waiting for an opponent, or
+    // makes it wait for one.
+    //
+    private void join(Connection connection) {
+        if ((connection.controller != null) || (connection == waitingPlayer)) {
+            return;
+        }
+        if ((waitingPlayer == null) || !waitingPlayer.isOpen()) {
+            waitingPlayer = connection;
+            return;
+        }
+
+        Connection white = waitingPlayer;
+        waitingPlayer = null;
+        registry.startMatch(matchId -> {
+            RemoteGameController controller = new RemoteGameController(matchId, white, connection);
+            white.controller = controller;
+            connection.controller = controller;
+            controllers.put(matchId, controller);
+            return controller;
+        }, white.getName(), connection.getName());
+    }
+
+    //
+    // Queues the move on the match, as a movement of the piece standing on
+    // its origin. Only a player of the match may move on it.
+    //
+    private void submitMove(Connection connection, int matchId, int wireMove) {
+        RemoteGameController controller = connection.controller;
+        if ((controller == null) || (controller.matchId != matchId)) {
+            connection.send(GameProtocol.moveRejected(matchId, wireMove));
+            return;
+        }
+
+        try {
+            registry.runOnMatch(matchId, match -> {
+                Player player = controller.playerOf(connection, match);
+                int origin = GameProtocol.originOf(wireMove);
+                int target = GameProtocol.targetOf(wireMove);
+                ChessPiece piece = match.getGameBoard()
+                        .getCell(Position.columnOf(origin), Position.rowOf(origin)).getPiece();
+                controller.rejectedConnection = connection;
+                controller.rejectedMove = wireMove;
+                if (piece == null) {
+                    throw new RejectedMovementException("'wireMove' holds an invalid value: " + wireMove);
+                }
+                int promotionType = GameProtocol.promotionTypeOf(wireMove);
+                match.handleMovement(new PieceDisplacement(piece.getId(), player, Position.columnOf(target),
+                        Position.rowOf(target), (promotionType == 0)
+                        ? ChessPiece.PieceType.QUEEN : ChessPiece.PieceType.values()[promotionType]));
+                controller.rejectedConnection = null;
+            });
+        } catch (IllegalArgumentException ex) {
+            // The match ended meanwhile.
+            connection.send(GameProtocol.moveRejected(matchId, wireMove));
+        }
+    }
+
+    //
+    // Has the connection watch the match. Matches not being played are
+    // ignored.
+    //
+    private void spectate(Connection connection, int matchId) {
+        RemoteGameController controller = controllers.get(matchId);
+        if (controller == null) {
+            return;
+        }
+        controller.spectators.addSpectator(new ConnectionSpectator(connection));
+    }
+
+    //
+    // Abandons the match of a connection which has been closed.
+    //
+    private void onDisconnected(Connection connection) {
+        if (waitingPlayer == connection) {
+            waitingPlayer = null;
+        }
+        RemoteGameController controller = connection.controller;
+        if (controller == null) {
+            return;
+        }
+        try {
+            registry.runOnMatch(controller.matchId, match -> {
+                if (match.hasNextTurn()) {
+                    match.abandon(controller.playerOf(connection, match));
+                }
+            });
+        } catch (IllegalArgumentException ex) {
+            // The match ended meanwhile.
+        }
+    }
+
+    //
+    // Socket of a remote player, with its buffers. Reading and writing
+    // happen on the selector thread; send may be called from any thread.
+    //
+    private class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        private final Queue<ByteBuffer> outgoing = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger outgoingBytes = new AtomicInteger();
+        private SelectionKey key;
+
+        // Controller of the match being played, or null.
+        private volatile RemoteGameController controller;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        String getName() {
+            try {
+                return "remote " + channel.getRemoteAddress();
+            } catch (IOException ex) {
+                return "remote";
+            }
+        }
+
+        boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        //
+        // Queues a frame and has the selector thread write it.
+        //
+        void send(ByteBuffer frame) {
+            outgoingBytes.addAndGet(frame.remaining());
+            outgoing.add(frame);
+            pendingWrites.add(this);
+            if (wakeupRequested.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        //
+        // Writes the queued frames, waiting for the socket to be writable
+        // again when its buffer is full.
+        //
+        void flush() {
+            if (!key.isValid()) {
+                outgoing.clear();
+                outgoingBytes.set(0);
+                return;
+            }
+            try {
+                ByteBuffer frame;
+                while ((frame = outgoing.peek()) != null) {
+                    channel.write(frame);
+                    if (frame.hasRemaining()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    outgoing.poll();
+                    outgoingBytes.addAndGet(-frame.limit());
+                }
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            } catch (IOException ex) {
+                close();
+            }
+        }
+
+        //
+        // Reads what the socket has received, handling every complete frame.
+        //
+        void read() {
+            try {
+                if (channel.read(readBuffer) < 0) {
+                    close();
+                    return;
+                }
+            } catch (IOException ex) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.hasRemaining()) {
+                int length = GameProtocol.nextFrameLength(readBuffer);
+                // Only the frames of clients are accepted, so that a frame
+                // which cannot fit the buffer never waits to be completed.
+                if (!GameProtocol.isClientFrame(readBuffer.get(readBuffer.position())) || (length < 0)
+                        || (length > readBuffer.capacity())) {
+                    // Garbage: the client does not speak the protocol.
+                    close();
+                    return;
+                }
+                if (length == 0) {
+                    break;
+                }
+                handleFrame(this, readBuffer, readBuffer.position());
+                readBuffer.position(readBuffer.position() + length);
+            }
+            readBuffer.compact();
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // Closed anyway.
+            }
+            onDisconnected(this);
+        }
+    }
+
+    //
+    // Connection watching a match, refusing frames while it has too much
+    // left to write.
+    //
+    private static class ConnectionSpectator extends Spectator {
+        private final Connection connection;
+
+        ConnectionSpectator(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public boolean offer(ByteBuffer frame) {
+            if (connection.outgoingBytes.get() > SPECTATOR_BACKLOG_BYTES) {
+                return false;
+            }
+            // Each connection moves its own view of the shared frame.
+            connection.send(frame.duplicate());
+            return true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return !connection.isOpen();
+        }
+    }
+
+    //
+    // Controller of a match between two remote players, running on the
+    // thread of the match. It tells both players about the progress of the
+    // match, with the time each move took, and publishes it to spectators.
+    //
+    private class RemoteGameController extends GameController {
+        private final int matchId;
+        private final Connection white;
+        private final Connection black;
+        private final SpectatorChannel spectators;
+
+        // Start of the turn being played.
+        private long turnStartNanos;
+
+        // Last move submitted, reported back when the match rejects it.
+        private Connection rejectedConnection;
+        private int rejectedMove;
+
+        RemoteGameController(int matchId, Connection white, Connection black) {
+            this.matchId = matchId;
+            this.white = white;
+            this.black = black;
+            spectators = new SpectatorChannel(matchId, Position.fromFen(Position.START_FEN));
+            broadcaster.register(spectators);
+        }
+
+        Player playerOf(Connection connection, Match match) {
+            return (connection == white) ? match.getPlayer1() : match.getPlayer2();
+        }
+
+        //
+        // Sends the frame to both players. The copy is taken before the
+        // selector thread may start writing the frame and moving it.
+        //
+        private void sendToBoth(ByteBuffer frame) {
+            ByteBuffer copy = frame.duplicate();
+            white.send(frame);
+            black.send(copy);
+        }
+
+        @Override
+        public void handleMatchStart() {
+            white.send(GameProtocol.matchStarted(matchId, Position.WHITE));
+            black.send(GameProtocol.matchStarted(matchId, Position.BLACK));
+        }
+
+        @Override
+        public void handlePlayerTurn(Player player) {
+            turnStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void onMovementApplied(Player player, int move) {
+            int clockDelta = (int)((System.nanoTime() - turnStartNanos) / 1_000_000);
+            sendToBoth(GameProtocol.movePlayed(matchId, move, clockDelta));
+            spectators.publish(move, clockDelta, getOnGoingMatch().getGameBoard().getPosition());
+        }
+
+        @Override
+        public void handleVictory(Player winner) {
+            end((winner.getId() == 0) ? MatchResult.PLAYER_1_VICTORY : MatchResult.PLAYER_2_VICTORY);
+        }
+
+        @Override
+        public void handleDraw() {
+            end(MatchResult.DRAW);
+        }
+
+        @Override
+        public void onMatchAborted(RuntimeException cause) {
+            end(GameProtocol.ABORTED);
+        }
+
+        //
+        // Tells the players and spectators the match is over, once.
+        //
+        private void end(int resultType) {
+            if (controllers.remove(matchId) == null) {
+                return;
+            }
+            white.controller = null;
+            black.controller = null;
+            sendToBoth(GameProtocol.matchEnded(matchId, resultType));
+            spectators.finish(resultType);
+        }
+
+        @Override
+        public void handleInvalidPlayerInteraction() {
+            if (rejectedConnection != null) {
+                rejectedConnection.send(GameProtocol.moveRejected(matchId, rejectedMove));
+                rejectedConnection = null;
+            }
+        }
+
+        @Override
+        public void handleComputerTurn(Player player) {
+            throw new IllegalStateException("Remote matches are played by humans.");
+        }
+    }
+}
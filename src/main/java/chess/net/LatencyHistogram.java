@@ -0,0 +1,43 @@
+package chess.net;
+
+// Histogram of latencies with a bucket per microsecond up to its range,
+// plus one for anything longer, so that millions of samples can be kept
+// and percentiles read without storing them. Not thread-safe.
+public class LatencyHistogram {
+    // Longest latency told apart from the others, in microseconds.
+    private static final int RANGE_MICROS = 1_000_000;
+
+    private final long[] counts = new long[RANGE_MICROS + 1];
+    private long count;
+    private long maxNanos;
+
+    public void record(long nanos) {
+        counts[(int)Math.min(Math.max(0, nanos / 1000), RANGE_MICROS)]++;
+        count++;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    //
+    // Retrieves the latency below which the passed fraction of the samples
+    // fall, in microseconds.
+    //
+    public long getPercentileMicros(double fraction) {
+        long rank = (long)Math.ceil(count * fraction);
+        long seen = 0;
+        for (int micros = 0; micros < counts.length; micros++) {
+            seen += counts[micros];
+            if ((seen >= rank) && (seen > 0)) {
+                return micros;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,28 @@
+package chess.net;
+
+import java.nio.ByteBuffer;
+
+// Watcher of a match, fed by a SpectatorChannel. Only the broadcaster
+// thread calls it.
+public abstract class Spectator {
+    // Sequence of the next move to be sent, or -1 until the spectator has
+    // received a snapshot of the match.
+    long cursor = -1;
+
+    // Set once the end of the match has been sent.
+    boolean endSent;
+
+    //
+    // Offers a frame, shared by every spectator and never to be changed,
+    // returning false when the spectator cannot take it now. A refused
+    // frame is not sent again: the moves it carried come later within a
+    // larger batch, or are skipped by a snapshot.
+    //
+    public abstract boolean offer(ByteBuffer frame);
+
+    //
+    // Indicates whether or not the spectator has left, which removes it
+    // from its channel.
+    //
+    public abstract boolean isClosed();
+}
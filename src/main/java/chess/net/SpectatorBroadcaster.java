@@ -0,0 +1,274 @@
+package chess.net;
+
+import chess.gameplay.MoveGenerator;
+import chess.gameplay.world.Position;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+// Thread feeding the spectators of many SpectatorChannels. It wakes up
+// once per batching window and sends every spectator, in one frame, the
+// moves published during the window, so that the cost of a broadcast is
+// paid per window rather than per move, however fast the matches are
+// played.
+public class SpectatorBroadcaster {
+    // Default batching window, in microseconds.
+    public static final int DEFAULT_WINDOW_MICROS = 2000;
+
+    // Moves published per second by the benchmark, and the bandwidth of its
+    // slow spectators, in bytes per second.
+    private static final int BENCHMARK_MOVES_PER_SECOND = 1000;
+    private static final int SLOW_SPECTATOR_BYTES_PER_SECOND = 8 * 1024;
+
+    // Plies after which the benchmark starts a new game.
+    private static final int BENCHMARK_GAME_PLIES = 200;
+
+    private final CopyOnWriteArrayList<SpectatorChannel> channels = new CopyOnWriteArrayList<>();
+    private final long windowNanos;
+    private final Thread thread;
+    private volatile boolean running;
+
+    // Statistics, written by the broadcaster thread.
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private long rounds;
+    private long busyNanos;
+
+    public SpectatorBroadcaster() {
+        this(DEFAULT_WINDOW_MICROS);
+    }
+
+    public SpectatorBroadcaster(int windowMicros) {
+        if (windowMicros <= 0) {
+            throw new IllegalArgumentException("'windowMicros' holds an invalid value: " + windowMicros);
+        }
+        windowNanos = windowMicros * 1000L;
+        thread = new Thread(this::run, "spectator-broadcaster");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    //
+    // Stops the broadcaster thread and waits for it, after which its
+    // statistics may be read.
+    //
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //
+    // Feeds the spectators of the channel until its match has ended and
+    // every one of them has been told.
+    //
+    public void register(SpectatorChannel channel) {
+        channels.add(channel);
+    }
+
+    public int getChannelCount() {
+        return channels.size();
+    }
+
+    //
+    // Retrieves the latencies between the publication of a move and its
+    // delivery to a spectator.
+    //
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    public long getRounds() {
+        return rounds;
+    }
+
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    private void run() {
+        while (running) {
+            long roundStart = System.nanoTime();
+            for (SpectatorChannel channel : channels) {
+                channel.broadcast(latencies);
+                if (channel.isFinished()) {
+                    channels.remove(channel);
+                }
+            }
+            long roundEnd = System.nanoTime();
+            rounds++;
+            busyNanos += roundEnd - roundStart;
+
+            long wait = roundStart + windowNanos - roundEnd;
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+        }
+    }
+
+    //
+    // Plays random games on a single channel watched by the passed amount
+    // of simulated spectators for the passed seconds, then prints how the
+    // moves were fanned out. Most spectators take every frame, a tenth of
+    // them have little bandwidth and one in a hundred stalls for long
+    // stretches.
+    //
+    public static void benchmark(int spectators, int seconds) {
+        if (spectators <= 0) {
+            throw new IllegalArgumentException("'spectators' holds an invalid value: " + spectators);
+        }
+        Position position = Position.fromFen(Position.START_FEN);
+        SpectatorChannel channel = new SpectatorChannel(0, position);
+        SimulatedSpectator[] simulated = new SimulatedSpectator[spectators];
+        for (int index = 0; index < spectators; index++) {
+            int kind = (index % 100 == 0) ? SimulatedSpectator.STALLED
+                    : (index % 10 == 0) ? SimulatedSpectator.SLOW : SimulatedSpectator.FAST;
+            simulated[index] = new SimulatedSpectator(kind);
+            channel.addSpectator(simulated[index]);
+        }
+
+        SpectatorBroadcaster broadcaster = new SpectatorBroadcaster();
+        broadcaster.register(channel);
+        broadcaster.start();
+
+        // The calling thread plays the match, as its single writer.
+        Random random = new Random(1);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long interval = 1_000_000_000L / BENCHMARK_MOVES_PER_SECOND;
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long due = start;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            if (now < due) {
+                LockSupport.parkNanos(due - now);
+                continue;
+            }
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+            if ((moveCount == 0) || (position.getPlyCount() >= BENCHMARK_GAME_PLIES)) {
+                position = Position.fromFen(Position.START_FEN);
+                continue;
+            }
+            int move = moves[random.nextInt(moveCount)];
+            position.makeMove(move);
+            channel.publish(move, random.nextInt(1000), position);
+            due += interval;
+        }
+        long elapsed = System.nanoTime() - start;
+        broadcaster.stop();
+
+        report(channel, broadcaster, simulated, elapsed);
+    }
+
+    private static void report(SpectatorChannel channel, SpectatorBroadcaster broadcaster,
+                               SimulatedSpectator[] simulated, long elapsedNanos) {
+        long bytes = 0;
+        long gaps = 0;
+        long[] behind = new long[3];
+        int[] kinds = new int[3];
+        for (SimulatedSpectator spectator : simulated) {
+            bytes += spectator.bytes;
+            gaps += spectator.gaps;
+            kinds[spectator.kind]++;
+            behind[spectator.kind] += channel.getPublished() - Math.max(0, spectator.cursor);
+        }
+        LatencyHistogram latencies = broadcaster.getLatencies();
+
+        System.out.printf("%d spectators (%d fast, %d slow, %d stalling), %d moves in %.1f s, %d rounds"
+                        + " of %.2f ms on average%n", simulated.length, kinds[SimulatedSpectator.FAST],
+                kinds[SimulatedSpectator.SLOW], kinds[SimulatedSpectator.STALLED], channel.getPublished(),
+                elapsedNanos / 1e9, broadcaster.getRounds(),
+                broadcaster.getBusyNanos() / 1e6 / Math.max(1, broadcaster.getRounds()));
+        System.out.printf("%d deliveries of %d moves from %d encoded frames (%.0f deliveries per frame),"
+                        + " %.1f%% coalesced, %.1f MB sent%n", channel.getDeliveries(), channel.getDeliveredMoves(),
+                channel.getEncodedFrames(), channel.getDeliveries() / (double)Math.max(1, channel.getEncodedFrames()),
+                100.0 * channel.getCoalescedDeliveries() / Math.max(1, channel.getDeliveries()), bytes / 1e6);
+        System.out.printf("%d refused frames, %d snapshots sent, %d sequence gaps%n", channel.getRefusals(),
+                channel.getSnapshotsSent(), gaps);
+        System.out.printf("queue depth: last %d, max %d moves; moves behind at the end: fast %.1f, slow %.1f,"
+                        + " stalling %.1f%n", channel.getQueueDepth(), channel.getMaxQueueDepth(),
+                behind[SimulatedSpectator.FAST] / (double)Math.max(1, kinds[SimulatedSpectator.FAST]),
+                behind[SimulatedSpectator.SLOW] / (double)Math.max(1, kinds[SimulatedSpectator.SLOW]),
+                behind[SimulatedSpectator.STALLED] / (double)Math.max(1, kinds[SimulatedSpectator.STALLED]));
+        if (latencies.getCount() > 0) {
+            System.out.printf("fan-out latency: p50 %d us, p99 %d us, max %.1f us%n",
+                    latencies.getPercentileMicros(0.50), latencies.getPercentileMicros(0.99),
+                    latencies.getMaxNanos() / 1e3);
+        }
+    }
+
+    //
+    // Spectator of the benchmark, which checks that the batches it takes
+    // follow each other.
+    //
+    private static class SimulatedSpectator extends Spectator {
+        private static final int FAST = 0;
+        private static final int SLOW = 1;
+        private static final int STALLED = 2;
+
+        // Stalling spectators take frames during one period out of four.
+        private static final long STALL_PERIOD_NANOS = 500_000_000L;
+
+        private final int kind;
+
+        // Bytes the slow spectators may take, refilled over time.
+        private double budget = SLOW_SPECTATOR_BYTES_PER_SECOND / 10.0;
+        private long refillNanos = System.nanoTime();
+
+        // Sequence expected in the next batch.
+        private long expected = -1;
+        private long bytes;
+        private long gaps;
+
+        SimulatedSpectator(int kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        public boolean offer(ByteBuffer frame) {
+            if (kind == SLOW) {
+                long now = System.nanoTime();
+                budget = Math.min(SLOW_SPECTATOR_BYTES_PER_SECOND / 10.0,
+                        budget + (now - refillNanos) * SLOW_SPECTATOR_BYTES_PER_SECOND / 1e9);
+                refillNanos = now;
+                if (budget < frame.remaining()) {
+                    return false;
+                }
+                budget -= frame.remaining();
+            } else if ((kind == STALLED) && ((System.nanoTime() / STALL_PERIOD_NANOS) % 4 != 0)) {
+                return false;
+            }
+
+            bytes += frame.remaining();
+            long sequence = frame.getInt(frame.position() + 7) & 0xFFFFFFFFL;
+            switch (frame.get(frame.position())) {
+                case GameProtocol.MOVE_BATCH:
+                    if ((expected >= 0) && (sequence != expected)) {
+                        gaps++;
+                    }
+                    expected = sequence + (frame.get(frame.position() + 11) & 0xFF);
+                    break;
+                case GameProtocol.SNAPSHOT:
+                    expected = sequence;
+                    break;
+                default:
+                    break;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+    }
+}
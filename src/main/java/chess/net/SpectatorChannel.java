@@ -0,0 +1,275 @@
+package chess.net;
+
+import chess.gameplay.world.Position;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Moves of a match on their way to its spectators. The thread of the match
+// is the single writer of a ring of the latest moves, and publishes each
+// one by advancing a volatile sequence, without locks. A broadcaster thread
+// reads the ring and sends every spectator, in a single batch, the moves it
+// has not received yet.
+//
+// Spectators at the same point of the match share the same encoded batch,
+// so that a move watched by thousands is encoded once. A spectator which
+// cannot take a batch gets the moves later, coalesced with the next ones.
+// Once it falls half the ring behind, it gets the latest snapshot of the
+// position instead, skipping the moves before it. Snapshots are taken
+// often enough that the moves played after them are still in the ring.
+public class SpectatorChannel {
+    // Moves kept by default.
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int matchId;
+
+    // Ring of the moves, packed by GameProtocol.packEvent, with the time
+    // each one was published at.
+    private final long[] events;
+    private final long[] publishNanos;
+    private final int mask;
+
+    // Lag after which a spectator gets a snapshot, and moves between two
+    // snapshots.
+    private final int lagLimit;
+    private final int snapshotInterval;
+
+    // Moves published so far, written only by the thread of the match.
+    private volatile long published;
+
+    // Latest snapshot, and the result of the match once it has ended.
+    private volatile Snapshot snapshot;
+    private volatile int resultType = -1;
+
+    // Spectators waiting to be added by the broadcaster, and those it
+    // feeds, which only it touches.
+    private final Queue<Spectator> joining = new ConcurrentLinkedQueue<>();
+    private final ArrayList<Spectator> spectators = new ArrayList<>();
+    private volatile int spectatorCount;
+
+    // Statistics, written by the broadcaster.
+    private long encodedFrames;
+    private long deliveries;
+    private long coalescedDeliveries;
+    private long deliveredMoves;
+    private long refusals;
+    private long snapshotsSent;
+    private long queueDepth;
+    private long maxQueueDepth;
+
+    public SpectatorChannel(int matchId, Position position) {
+        this(matchId, position, DEFAULT_CAPACITY);
+    }
+
+    //
+    // Creates the channel of a match standing on the position, keeping the
+    // passed amount of moves, which must be a power of two.
+    //
+    public SpectatorChannel(int matchId, Position position, int capacity) {
+        if ((capacity < 8) || (Integer.bitCount(capacity) != 1)) {
+            throw new IllegalArgumentException("'capacity' holds an invalid value: " + capacity);
+        }
+        this.matchId = matchId;
+        events = new long[capacity];
+        publishNanos = new long[capacity];
+        mask = capacity - 1;
+        lagLimit = capacity / 2;
+        snapshotInterval = capacity / 4;
+        snapshot = new Snapshot(0, position.toFen());
+    }
+
+    public int getMatchId() {
+        return matchId;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
+
+    //
+    // Publishes a move with the time its player spent on it, together with
+    // the position it led to. Only the thread of the match may call it.
+    //
+    public void publish(int move, int clockDeltaMillis, Position position) {
+        long sequence = published;
+        int slot = (int)(sequence & mask);
+        events[slot] = GameProtocol.packEvent(move, clockDeltaMillis);
+        publishNanos[slot] = System.nanoTime();
+        if ((sequence + 1) % snapshotInterval == 0) {
+            snapshot = new Snapshot(sequence + 1, position.toFen());
+        }
+        // The volatile write makes the slot visible to the broadcaster.
+        published = sequence + 1;
+    }
+
+    //
+    // Marks the end of the match, after its last move has been published.
+    //
+    public void finish(int value) {
+        resultType = value;
+    }
+
+    //
+    // Adds a spectator from any thread. It first receives the latest
+    // snapshot, then the moves played since.
+    //
+    public void addSpectator(Spectator spectator) {
+        joining.add(spectator);
+    }
+
+    //
+    // Indicates whether or not the match has ended and every spectator has
+    // been told, after which the channel can be dropped.
+    //
+    public boolean isFinished() {
+        if (resultType < 0) {
+            return false;
+        }
+        for (Spectator spectator : spectators) {
+            if (!spectator.endSent && !spectator.isClosed()) {
+                return false;
+            }
+        }
+        return joining.isEmpty();
+    }
+
+    //
+    // Sends every spectator what it is missing. Only the broadcaster
+    // thread may call it; it records the time between the publication of
+    // the newest move of every batch and its delivery.
+    //
+    void broadcast(LatencyHistogram latencies) {
+        Spectator joined;
+        while ((joined = joining.poll()) != null) {
+            spectators.add(joined);
+        }
+
+        // The result is read first, so that every move is published by then.
+        int result = resultType;
+        long end = published;
+        Snapshot latest = snapshot;
+        ByteBuffer snapshotFrame = null;
+        ByteBuffer endFrame = null;
+        HashMap<Long, ByteBuffer> batches = new HashMap<>();
+        long depth = 0;
+
+        for (int index = spectators.size() - 1; index >= 0; index--) {
+            Spectator spectator = spectators.get(index);
+            if (spectator.isClosed()) {
+                spectators.set(index, spectators.get(spectators.size() - 1));
+                spectators.remove(spectators.size() - 1);
+                continue;
+            }
+
+            if ((spectator.cursor < 0) || (end - spectator.cursor > lagLimit)) {
+                if (snapshotFrame == null) {
+                    snapshotFrame = GameProtocol.snapshot(matchId, latest.sequence, latest.fen);
+                    encodedFrames++;
+                }
+                if (spectator.offer(snapshotFrame)) {
+                    spectator.cursor = latest.sequence;
+                    snapshotsSent++;
+                } else {
+                    refusals++;
+                }
+            } else if (spectator.cursor < end) {
+                long cursor = spectator.cursor;
+                int count = (int)Math.min(end - cursor, GameProtocol.MAX_BATCH_MOVES);
+                ByteBuffer batch = batches.get(cursor);
+                if (batch == null) {
+                    batch = GameProtocol.moveBatch(matchId, cursor, events, mask, count);
+                    // Moves overwritten while being read leave the spectator
+                    // behind, to get a snapshot next time.
+                    if (published - events.length >= cursor) {
+                        continue;
+                    }
+                    batches.put(cursor, batch);
+                    encodedFrames++;
+                }
+                if (spectator.offer(batch)) {
+                    spectator.cursor = cursor + count;
+                    deliveries++;
+                    deliveredMoves += count;
+                    if (count > 1) {
+                        coalescedDeliveries++;
+                    }
+                    latencies.record(System.nanoTime() - publishNanos[(int)((cursor + count - 1) & mask)]);
+                } else {
+                    refusals++;
+                }
+            } else if ((result >= 0) && !spectator.endSent) {
+                if (endFrame == null) {
+                    endFrame = GameProtocol.matchEnded(matchId, result);
+                }
+                spectator.endSent = spectator.offer(endFrame);
+            }
+            depth = Math.max(depth, end - Math.max(spectator.cursor, 0));
+        }
+
+        spectatorCount = spectators.size();
+        queueDepth = depth;
+        maxQueueDepth = Math.max(maxQueueDepth, depth);
+    }
+
+    //
+    // Retrieves the moves the furthest behind spectator was missing on the
+    // last broadcast, before it.
+    //
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getEncodedFrames() {
+        return encodedFrames;
+    }
+
+    public long getDeliveries() {
+        return deliveries;
+    }
+
+    //
+    // Retrieves the deliveries which carried more than one move.
+    //
+    public long getCoalescedDeliveries() {
+        return coalescedDeliveries;
+    }
+
+    public long getDeliveredMoves() {
+        return deliveredMoves;
+    }
+
+    //
+    // Retrieves the frames spectators could not take at the time.
+    //
+    public long getRefusals() {
+        return refusals;
+    }
+
+    public long getSnapshotsSent() {
+        return snapshotsSent;
+    }
+
+    //
+    // Position of the match after a number of moves.
+    //
+    private static class Snapshot {
+        private final long sequence;
+        private final String fen;
+
+        Snapshot(long sequence, String fen) {
+            this.sequence = sequence;
+            this.fen = fen;
+        }
+    }
+}
@@ -6,6 +6,8 @@
 package chess.ui;
 
 import chess.Main;
+import chess.engine.ComputerPlayer;
+import chess.engine.SearchLimits;
 import chess.gameplay.GameController;
 import chess.gameplay.MatchWrapper;
 import chess.gameplay.world.Board;
@@ -19,6 +21,11 @@ import java.awt.event.ActionListener;
  */
 public class BoardPanel extends javax.swing.JPanel {
 
+    /**
+     * Thinking time given to the computer players, in milliseconds.
+     */
+    private static final SearchLimits COMPUTER_LIMITS = SearchLimits.time(1000, 3000);
+
     private BoardTile[][] boardTiles = new BoardTile[Board.SIDE_SIZE][Board.SIDE_SIZE];
     private BoardTileSynchronizer synchronizer;
     
@@ -64,6 +71,14 @@ public class BoardPanel extends javax.swing.JPanel {
         SwingGameController gameController = new SwingGameController(this, synchronizer);
         addClickListenersToBoardTilesForGameController(gameController);
         
+        // Players named after the computer are played by the engine.
+        if (ComputerPlayer.isComputerName(player1Name)) {
+            gameController.setComputerPlayer(0, new ComputerPlayer(COMPUTER_LIMITS));
+        }
+        if (ComputerPlayer.isComputerName(player2Name)) {
+            gameController.setComputerPlayer(1, new ComputerPlayer(COMPUTER_LIMITS));
+        }
+        
         matchWrapper.startNewMatch(gameController, player1Name, player2Name);
     }
 
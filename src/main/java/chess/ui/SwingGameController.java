@@ -5,11 +5,18 @@
  */
 package chess.ui;
 
+import chess.engine.ComputerPlayer;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
 import chess.gameplay.GameController;
+import chess.gameplay.Match;
 import chess.gameplay.world.Player;
+import chess.gameplay.world.Position;
 import chess.ui.utils.BoardTileSynchronizer;
 import chess.ui.utils.BoardTile;
+import java.util.concurrent.ExecutionException;
 import javax.swing.JOptionPane;
+import javax.swing.SwingWorker;
 
 /**
  * Game controller made for Swing.
@@ -21,6 +28,12 @@ public class SwingGameController extends GameController {
     private final BoardPanel boardPanel;
     private final BoardTileSynchronizer synchronizer;
     
+    /**
+     * Search running on the human's time, on the position expected after
+     * the reply the computer predicted, or null. Only touched on the EDT.
+     */
+    private ComputerMoveWorker ponderWorker;
+    
     public SwingGameController(BoardPanel boardPanel, BoardTileSynchronizer synchronizer) {
         this.boardPanel = boardPanel;
         this.synchronizer = synchronizer;
@@ -41,8 +54,146 @@ public class SwingGameController extends GameController {
                 JOptionPane.INFORMATION_MESSAGE);
     }
 
+    /**
+     * Runs the search on a worker thread, so that the window keeps
+     * responding, and applies the chosen move back on the EDT. When the
+     * human played the reply the computer was pondering on, that search
+     * goes on instead, with its time counted from its start.
+     * @param player Instance of the Player played by the computer.
+     */
+    @Override
+    public void handleComputerTurn(Player player) {
+        synchronizer.synchronizeToChessBoard(getOnGoingMatch().getGameBoard());
+        
+        Position position = getOnGoingMatch().getGameBoard().getPosition();
+        if (ponderWorker != null) {
+            ComputerMoveWorker worker = ponderWorker;
+            ponderWorker = null;
+            if (worker.position.getHashKey() == position.getHashKey()) {
+                worker.ponderHit();
+                return;
+            }
+            worker.cancelSearch();
+        }
+        
+        new ComputerMoveWorker(player, new Position(position), getComputerPlayer(player).getLimits(), false)
+                .execute();
+    }
+    
+    /**
+     * Starts searching, on the human's time, the position reached after
+     * the computer's move and the reply it expects from the human.
+     * @param player Instance of the Player played by the computer.
+     * @param root Position the computer is about to move on.
+     * @param result Result of the search of the root.
+     */
+    private void startPondering(Player player, Position root, SearchResult result) {
+        int[] variation = result.getPrincipalVariation();
+        if (variation.length < 2) {
+            return;
+        }
+        
+        Position predicted = new Position(root);
+        predicted.makeMove(variation[0]);
+        predicted.makeMove(variation[1]);
+        ponderWorker = new ComputerMoveWorker(player, predicted,
+                getComputerPlayer(player).createPonderLimits(), true);
+        ponderWorker.execute();
+    }
+    
+    /**
+     * Aborts the search running on the human's time, if any.
+     */
+    private void stopPondering() {
+        if (ponderWorker != null) {
+            ponderWorker.cancelSearch();
+            ponderWorker = null;
+        }
+    }
+    
+    /**
+     * Search of a move of the computer, running on a worker thread. Its
+     * outcome is handled on the EDT, where it plays the move found and,
+     * against a human, starts pondering on the expected reply.
+     */
+    private class ComputerMoveWorker extends SwingWorker<SearchResult, Void> {
+        private final Player player;
+        private final Position position;
+        private final SearchLimits limits;
+        /**
+         * Set while the search waits for the human to play the predicted
+         * reply; its result is then kept instead of being played.
+         */
+        private boolean awaitingPonderHit;
+        private boolean cancelled;
+        /**
+         * Set once the result has been played. SwingWorker posts done()
+         * to the EDT after isDone() turns true, so that a ponder hit in
+         * between may call it first; the result is then played only once.
+         */
+        private boolean resultHandled;
+        
+        ComputerMoveWorker(Player player, Position position, SearchLimits limits, boolean pondering) {
+            this.player = player;
+            this.position = position;
+            this.limits = limits;
+            this.awaitingPonderHit = pondering;
+        }
+        
+        @Override
+        protected SearchResult doInBackground() {
+            return getComputerPlayer(player).think(position, limits);
+        }
+        
+        /**
+         * Lets the search run out of time as usual, and plays its result
+         * right away if it has already finished.
+         */
+        void ponderHit() {
+            awaitingPonderHit = false;
+            limits.setPondering(false);
+            if (isDone()) {
+                done();
+            }
+        }
+        
+        /**
+         * Makes the search stop as soon as it checks its limits, and its
+         * result be ignored.
+         */
+        void cancelSearch() {
+            cancelled = true;
+            limits.setMaxNodes(0);
+        }
+        
+        @Override
+        protected void done() {
+            if (cancelled || awaitingPonderHit || resultHandled) {
+                return;
+            }
+            resultHandled = true;
+            
+            SearchResult result;
+            try {
+                result = get();
+            } catch (InterruptedException | ExecutionException ex) {
+                throw new IllegalStateException("The computer player failed to move.", ex);
+            }
+            applyComputerMove(player, result.getBestMove());
+            
+            // Pondering only makes sense against a human, once the move
+            // has been played and the match goes on.
+            Match match = getOnGoingMatch();
+            Player nextPlayer = (player == match.getPlayer1()) ? match.getPlayer2() : match.getPlayer1();
+            if (match.hasNextTurn() && (getComputerPlayer(nextPlayer) == null)) {
+                startPondering(player, position, result);
+            }
+        }
+    }
+
     @Override
     public void handleVictory(Player winner) {
+        stopPondering();
         // Let the players know if they've won.
         JOptionPane.showMessageDialog(null,
                 "You've won the match " + winner.getName(), 
@@ -52,6 +203,18 @@ public class SwingGameController extends GameController {
         showMainMenu();
     }
     
+    @Override
+    public void handleDraw() {
+        stopPondering();
+        // Let the players know nobody can win anymore.
+        JOptionPane.showMessageDialog(null,
+                "The match has ended in a draw.",
+                "Draw!",
+                JOptionPane.INFORMATION_MESSAGE);
+        
+        showMainMenu();
+    }
+    
     private void showMainMenu() {
         boardPanel.gameWindow.remove(boardPanel);
         
@@ -70,6 +233,13 @@ public class SwingGameController extends GameController {
     }
     
     public void onBoardTileClicked(BoardTile clickedTile) {
+        // The board belongs to the engine while it is thinking, and to
+        // nobody once the match is over.
+        if ((getComputerPlayer(getPlayerInteraction().getSourcePlayer()) != null)
+                || (getOnGoingMatch().getState() != Match.TurnState.WAITING_FOR_MOVEMENT)) {
+            return;
+        }
+        
         getPlayerInteraction()
                 .selectedColumnAndRow(clickedTile.column, clickedTile.row);
         
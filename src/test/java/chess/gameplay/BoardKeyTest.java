@@ -0,0 +1,32 @@
+package chess.gameplay;
+
+import chess.gameplay.world.Board;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Position;
+import chess.gameplay.world.RandomGames;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Checks the keys Board keeps up to date while a match applies movements
+// to it against those of the same position read back from its FEN.
+class BoardKeyTest {
+    @Test
+    void appliedMovementsKeepTheKeysOfTheBoard() {
+        Random random = new Random(11);
+        for (int game = 0; game < 50; game++) {
+            Match match = TestMatches.create(new TestMatches.QuietController());
+            match.start();
+            Board board = match.getGameBoard();
+            RandomGames.play(board.getPosition(), random, 200, (position, moves, moveCount) -> {
+                Position expected = Position.fromFen(position.toFen());
+                String context = "after " + Move.toString(position.getLastMove());
+                assertEquals(expected.getHashKey(), board.getHashKey(), context);
+                assertEquals(expected.getPawnHashKey(), board.getPawnHashKey(), context);
+                return match.hasNextTurn();
+            }, move -> match.handleMovement(TestMatches.displacement(match, move)));
+        }
+    }
+}
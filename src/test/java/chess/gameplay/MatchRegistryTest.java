@@ -0,0 +1,171 @@
+package chess.gameplay;
+
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Player;
+import chess.gameplay.world.Position;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks that MatchRegistry runs many matches at once, telling rejected
+// movements apart from failures.
+class MatchRegistryTest {
+    private static final int MATCHES = 2000;
+
+    // Plies after which the player on turn abandons a random game.
+    private static final int MAX_GAME_PLIES = 100;
+
+    // Longest wait for the matches, in milliseconds.
+    private static final long TIMEOUT_MILLIS = 120_000;
+
+    @Test
+    void concurrentMatchesAreEachStoredOnce() throws InterruptedException {
+        MatchWrapper wrapper = new MatchWrapper(new ArrayList<>());
+        MatchRegistry registry = new MatchRegistry(wrapper);
+        Queue<Integer> turns = new ConcurrentLinkedQueue<>();
+        AtomicInteger rejections = new AtomicInteger();
+        for (int index = 0; index < MATCHES; index++) {
+            registry.startMatch(matchId -> new RecordingController() {
+                @Override
+                public void handlePlayerTurn(Player player) {
+                    turns.add(matchId);
+                }
+
+                @Override
+                public void handleInvalidPlayerInteraction() {
+                    rejections.incrementAndGet();
+                }
+            }, "white " + index, "black " + index);
+        }
+
+        // Every turn is answered with a random legal move, from this thread.
+        Random random = new Random(1);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while ((registry.getActiveMatchCount() > 0) && (System.currentTimeMillis() < deadline)) {
+            Integer matchId = turns.poll();
+            if (matchId == null) {
+                Thread.sleep(1);
+                continue;
+            }
+            int seed = random.nextInt();
+            registry.runOnMatch(matchId, match -> playRandomMove(match, seed));
+        }
+
+        assertEquals(0, registry.getActiveMatchCount());
+        assertEquals(MATCHES, registry.getFinishedMatchCount());
+        assertEquals(0, registry.getAbortedMatchCount());
+        assertEquals(0, rejections.get());
+        ArrayList<MatchResult> results = wrapper.getResults();
+        HashSet<String> players = new HashSet<>();
+        for (MatchResult result : results) {
+            players.add(result.getPlayer1Name());
+        }
+        assertEquals(MATCHES, results.size());
+        assertEquals(MATCHES, players.size());
+        registry.shutdown();
+    }
+
+    @Test
+    void rejectedMovementIsReportedAndKeepsTheMatch() throws InterruptedException {
+        MatchRegistry registry = new MatchRegistry(new MatchWrapper(new ArrayList<>()));
+        RecordingController controller = new RecordingController();
+        int matchId = registry.startMatch(controller, "A", "B");
+
+        registry.runOnMatch(matchId,
+                match -> match.handleMovement(TestMatches.displacement(match, Move.create(12, 36))));
+        waitFor(() -> controller.invalidInteractions.get() == 1);
+
+        assertTrue(registry.isActive(matchId));
+        assertEquals(0, registry.getAbortedMatchCount());
+        registry.shutdown();
+    }
+
+    @Test
+    void failingControllerAbortsAndRemovesTheMatch() throws InterruptedException {
+        MatchWrapper wrapper = new MatchWrapper(new ArrayList<>());
+        MatchRegistry registry = new MatchRegistry(wrapper);
+        RecordingController controller = new RecordingController() {
+            @Override
+            public void handlePlayerTurn(Player player) {
+                throw new IllegalStateException("Controller failure.");
+            }
+        };
+        int matchId = registry.startMatch(controller, "A", "B");
+
+        waitFor(() -> registry.getAbortedMatchCount() == 1);
+
+        assertEquals("Controller failure.", controller.abortCause.getMessage());
+        assertTrue(!registry.isActive(matchId));
+        assertEquals(0, registry.getActiveMatchCount());
+        assertEquals(0, controller.invalidInteractions.get());
+        assertEquals(0, wrapper.getResults().size());
+        registry.shutdown();
+    }
+
+    //
+    // Plays a random legal move for the player on turn, or abandons the
+    // game once it has gone on for too long.
+    //
+    private static void playRandomMove(Match match, int seed) {
+        Position position = match.getGameBoard().getPosition();
+        if (position.getPlyCount() >= MAX_GAME_PLIES) {
+            match.abandon(match.getTurnOfPlayer());
+            return;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+        match.handleMovement(TestMatches.displacement(match, moves[Math.floorMod(seed, moveCount)]));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean() && (System.currentTimeMillis() < deadline)) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean(), "condition not reached in time");
+    }
+
+    //
+    // Controller counting the invalid interactions, and remembering the
+    // failure which aborted the match, if any.
+    //
+    private static class RecordingController extends GameController {
+        private final AtomicInteger invalidInteractions = new AtomicInteger();
+        private volatile RuntimeException abortCause;
+
+        @Override
+        public void handleMatchStart() {
+        }
+
+        @Override
+        public void handlePlayerTurn(Player player) {
+        }
+
+        @Override
+        public void handleVictory(Player winner) {
+        }
+
+        @Override
+        public void handleDraw() {
+        }
+
+        @Override
+        public void handleInvalidPlayerInteraction() {
+            invalidInteractions.incrementAndGet();
+        }
+
+        @Override
+        public void onMatchAborted(RuntimeException cause) {
+            abortCause = cause;
+        }
+    }
+}
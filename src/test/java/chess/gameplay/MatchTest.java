@@ -0,0 +1,100 @@
+package chess.gameplay;
+
+import chess.engine.ComputerPlayer;
+import chess.engine.SearchLimits;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks the turn state machine of Match.
+class MatchTest {
+    // Plies after which the computer players stop moving.
+    private static final int MAX_PLIES = 200;
+
+    @Test
+    void computerGameRunsAtConstantStackDepth() {
+        int[] plies = {0};
+        int[] stackDepths = {Integer.MAX_VALUE, 0};
+        MatchWrapper wrapper = new MatchWrapper(new ArrayList<>());
+        GameController controller = new TestMatches.QuietController() {
+            @Override
+            public void handleComputerTurn(Player player) {
+                int depth = Thread.currentThread().getStackTrace().length;
+                stackDepths[0] = Math.min(stackDepths[0], depth);
+                stackDepths[1] = Math.max(stackDepths[1], depth);
+                if (++plies[0] <= MAX_PLIES) {
+                    super.handleComputerTurn(player);
+                }
+            }
+        };
+        controller.setComputerPlayer(0, new ComputerPlayer(SearchLimits.depth(3)));
+        controller.setComputerPlayer(1, new ComputerPlayer(SearchLimits.depth(1)));
+
+        wrapper.startNewMatch(controller, "CPU", "CPU");
+
+        assertTrue(plies[0] > 50, "the game lasted " + plies[0] + " plies");
+        assertEquals(stackDepths[0], stackDepths[1], "stack depth of the turns");
+        // The game ends, by mate or by the draw rules, before the plies
+        // run out, and its result is stored once.
+        assertEquals(Match.TurnState.FINISHED, wrapper.onGoingMatch.getState());
+        assertEquals(1, wrapper.getResults().size());
+    }
+
+    @Test
+    void stepIsNotReentrant() {
+        GameController controller = new TestMatches.QuietController() {
+            @Override
+            public void handlePlayerTurn(Player player) {
+                getOnGoingMatch().step();
+            }
+        };
+        Match match = TestMatches.create(controller);
+
+        assertThrows(IllegalStateException.class, match::start);
+    }
+
+    @Test
+    void illegalMovementLeavesTheTurnWaiting() {
+        Match match = TestMatches.create(new TestMatches.QuietController());
+        assertEquals(Match.TurnState.WAITING_FOR_MOVEMENT, match.start());
+
+        // e2-e5 is not legal.
+        assertThrows(RejectedMovementException.class,
+                () -> match.handleMovement(TestMatches.displacement(match, Move.create(12, 36))));
+        assertEquals(Match.TurnState.WAITING_FOR_MOVEMENT, match.getState());
+        assertEquals(Match.TurnState.WAITING_FOR_MOVEMENT,
+                match.handleMovement(TestMatches.displacement(match, Move.create(12, 28))));
+    }
+
+    @Test
+    void failingCallbackLeavesADefinedState() {
+        RuntimeException[] abortCause = {null};
+        GameController controller = new TestMatches.QuietController() {
+            @Override
+            public void onMovementApplied(Player player, int move) {
+                throw new IllegalStateException("Callback failure.");
+            }
+
+            @Override
+            public void onMatchAborted(RuntimeException cause) {
+                abortCause[0] = cause;
+            }
+        };
+        Match match = TestMatches.create(controller);
+        match.start();
+
+        assertThrows(IllegalStateException.class,
+                () -> match.handleMovement(TestMatches.displacement(match, Move.create(12, 28))));
+        // The board holds the movement, whose turn never completed, so the
+        // match is aborted.
+        assertEquals("Callback failure.", abortCause[0].getMessage(), "cause told to the controller");
+        assertEquals(Match.TurnState.FINISHED, match.getState());
+        assertEquals(Match.TurnState.FINISHED, match.advance());
+    }
+}
@@ -0,0 +1,47 @@
+package chess.gameplay;
+
+import chess.gameplay.world.Position;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Regression suite comparing the perft counts of well-known positions
+// against their published values.
+class PerftTest {
+    //
+    // Positions in FEN notation, depth and expected leaf node count.
+    //
+    static Stream<Arguments> positions() {
+        return Stream.of(
+                Arguments.of(Position.START_FEN, 5, 4865609L),
+                // "Kiwipete", rich in castlings, pins and en passant captures.
+                Arguments.of("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 4, 4085603L),
+                Arguments.of("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 6, 11030083L),
+                Arguments.of("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 5, 15833292L),
+                Arguments.of("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 4, 2103487L),
+                Arguments.of("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", 4,
+                        3894594L));
+    }
+
+    @ParameterizedTest
+    @MethodSource("positions")
+    void countsPublishedLeafNodes(String fen, int depth, long expected) {
+        assertEquals(expected, new Perft(depth).count(Position.fromFen(fen), depth));
+    }
+
+    //
+    // Counts two plies deeper than Perft.SEQUENTIAL_DEPTH, so that the
+    // tree is split into tasks which fork and join.
+    //
+    @Test
+    void parallelCountMatchesPublishedLeafNodes() {
+        Position position = Position.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        assertEquals(193690690L, Perft.parallelCount(position, 5, ForkJoinPool.commonPool()));
+    }
+}
@@ -0,0 +1,59 @@
+package chess.gameplay;
+
+import chess.gameplay.world.ChessPiece;
+import chess.gameplay.world.Move;
+import chess.gameplay.world.Player;
+import chess.gameplay.world.Position;
+
+import java.util.ArrayList;
+
+// Matches and movements shared by the tests of the gameplay layer.
+final class TestMatches {
+    private TestMatches() {
+    }
+
+    //
+    // Creates a match keeping its result in memory.
+    //
+    static Match create(GameController controller) {
+        return new Match(new MatchWrapper(new ArrayList<>()), controller, "A", "B");
+    }
+
+    //
+    // Movement of the player on turn playing the move, which may be
+    // illegal.
+    //
+    static PieceDisplacement displacement(Match match, int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPiece piece = match.getGameBoard().getCell(Position.columnOf(from), Position.rowOf(from)).getPiece();
+        return new PieceDisplacement(piece.getId(), match.getTurnOfPlayer(), Position.columnOf(to),
+                Position.rowOf(to), Move.isPromotion(move)
+                ? ChessPiece.PieceType.values()[Move.promotionType(move)] : ChessPiece.PieceType.QUEEN);
+    }
+
+    //
+    // Controller ignoring every event of the match.
+    //
+    static class QuietController extends GameController {
+        @Override
+        public void handleMatchStart() {
+        }
+
+        @Override
+        public void handlePlayerTurn(Player player) {
+        }
+
+        @Override
+        public void handleVictory(Player winner) {
+        }
+
+        @Override
+        public void handleDraw() {
+        }
+
+        @Override
+        public void handleInvalidPlayerInteraction() {
+        }
+    }
+}
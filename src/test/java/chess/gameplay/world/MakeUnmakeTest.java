@@ -0,0 +1,71 @@
+package chess.gameplay.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Checks that unmakeMove restores everything makeMove changed, including
+// the state kept up to date incrementally.
+class MakeUnmakeTest {
+    @Test
+    void unmakeRestoresThePositionAfterEveryMove() {
+        Random random = new Random(5);
+        for (String fen : new String[] {Position.START_FEN, RandomGames.KIWIPETE}) {
+            for (int game = 0; game < 100; game++) {
+                RandomGames.play(Position.fromFen(fen), random, 80, (position, moves, moveCount) -> {
+                    String before = describe(position);
+                    for (int index = 0; index < moveCount; index++) {
+                        position.makeMove(moves[index]);
+                        assertEquals(moves[index], position.unmakeMove());
+                        assertEquals(before, describe(position), "after " + Move.toString(moves[index]));
+                    }
+                    return true;
+                });
+            }
+        }
+    }
+
+    @Test
+    void unmakingAWholeGameRestoresItsStart() {
+        Position position = Position.fromFen(RandomGames.KIWIPETE);
+        String start = describe(position);
+        for (int played = RandomGames.play(position, new Random(7), 120, (at, moves, moveCount) -> true);
+             played > 0; played--) {
+            position.unmakeMove();
+        }
+        assertEquals(start, describe(position));
+        assertEquals(Move.NONE, position.getLastMove());
+    }
+
+    @Test
+    void unmakeNullMoveRestoresThePosition() {
+        Position position = Position.fromFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        String before = describe(position);
+        position.makeNullMove();
+        position.unmakeNullMove();
+        assertEquals(before, describe(position));
+    }
+
+    //
+    // Describes every part of the position, so that two descriptions only
+    // match for identical positions.
+    //
+    private static String describe(Position position) {
+        StringBuilder text = new StringBuilder(position.toFen());
+        text.append(' ').append(position.getHashKey()).append(' ').append(position.getPawnHashKey());
+        for (int piece = 0; piece < Position.PIECE_CODE_COUNT; piece++) {
+            text.append(' ').append(position.getPieces(piece));
+        }
+        for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+            text.append(' ').append(position.getOccupancy(color)).append(' ').append(position.getKingSquare(color))
+                    .append(' ').append(position.getMaterial(color)).append(' ')
+                    .append(position.getPieceSquareValue(color));
+            for (int type = 0; type < Position.PIECE_TYPE_COUNT; type++) {
+                text.append(' ').append(position.getPieceCount(color, type));
+            }
+        }
+        return text.append(' ').append(position.getPhase()).toString();
+    }
+}
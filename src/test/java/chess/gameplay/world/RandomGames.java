@@ -0,0 +1,50 @@
+package chess.gameplay.world;
+
+import chess.gameplay.MoveGenerator;
+
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+// Seeded games of random legal moves, on which tests check what the
+// position keeps up to date.
+public final class RandomGames {
+    // "Kiwipete", rich in castlings, pins and en passant captures.
+    public static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private RandomGames() {
+    }
+
+    //
+    // Receives every position of a game before its move is chosen, with its
+    // legal moves, and tells whether the game goes on.
+    //
+    @FunctionalInterface
+    public interface PositionVisitor {
+        boolean visit(Position position, int[] moves, int moveCount);
+    }
+
+    //
+    // Plays random legal moves on the position until none is left, the
+    // plies run out or the visitor stops the game, returning the plies
+    // played.
+    //
+    public static int play(Position position, Random random, int maxPlies, PositionVisitor visitor) {
+        return play(position, random, maxPlies, visitor, position::makeMove);
+    }
+
+    //
+    // Plays as play does, handing every move to the mover, which must make
+    // it on the position, such as through a match.
+    //
+    public static int play(Position position, Random random, int maxPlies, PositionVisitor visitor,
+                           IntConsumer mover) {
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int plies = 0; ; plies++) {
+            int moveCount = MoveGenerator.generateLegalMoves(position, moves);
+            if (!visitor.visit(position, moves, moveCount) || (moveCount == 0) || (plies == maxPlies)) {
+                return plies;
+            }
+            mover.accept(moves[random.nextInt(moveCount)]);
+        }
+    }
+}
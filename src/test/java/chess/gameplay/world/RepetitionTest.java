@@ -0,0 +1,46 @@
+package chess.gameplay.world;
+
+import chess.gameplay.MoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Checks the repetitions searches score as draws against those the rules
+// draw the game on.
+class RepetitionTest {
+    private static final String[] KNIGHT_SHUFFLE = {"g1f3", "g8f6", "f3g1", "f6g8"};
+
+    @Test
+    void firstRepetitionDrawsForSearchesOnly() {
+        Position position = Position.fromFen(Position.START_FEN);
+        play(position, KNIGHT_SHUFFLE);
+        assertTrue(position.isDraw());
+        assertFalse(position.isDrawnByRules());
+    }
+
+    @Test
+    void secondRepetitionDrawsByRules() {
+        Position position = Position.fromFen(Position.START_FEN);
+        play(position, KNIGHT_SHUFFLE);
+        play(position, KNIGHT_SHUFFLE);
+        assertTrue(position.isThreefoldRepetition());
+        assertTrue(position.isDrawnByRules());
+    }
+
+    @Test
+    void pawnMoveForgetsEarlierPositions() {
+        Position position = Position.fromFen(Position.START_FEN);
+        play(position, KNIGHT_SHUFFLE);
+        play(position, new String[] {"e2e4", "e7e5"});
+        play(position, KNIGHT_SHUFFLE);
+        assertTrue(position.isRepetition());
+        assertFalse(position.isThreefoldRepetition());
+    }
+
+    private static void play(Position position, String[] moves) {
+        for (String move : moves) {
+            position.makeMove(MoveGenerator.findLegalMove(position, move));
+        }
+    }
+}
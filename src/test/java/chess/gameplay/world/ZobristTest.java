@@ -0,0 +1,42 @@
+package chess.gameplay.world;
+
+import chess.gameplay.MoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Checks the Zobrist key kept up to date by makeMove against the one
+// calculated from scratch.
+class ZobristTest {
+    @Test
+    void incrementalKeyMatchesCalculatedKeyOverRandomGames() {
+        Random random = new Random(3);
+        for (String fen : new String[] {Position.START_FEN, RandomGames.KIWIPETE}) {
+            for (int game = 0; game < 300; game++) {
+                RandomGames.play(Position.fromFen(fen), random, 80, (position, moves, moveCount) -> {
+                    assertEquals(position.calculateHashKey(), position.getHashKey(),
+                            "key after " + Move.toString(position.getLastMove()));
+                    return true;
+                });
+            }
+        }
+    }
+
+    @Test
+    void transpositionsShareTheirKey() {
+        Position position = Position.fromFen(Position.START_FEN);
+        for (String move : new String[] {"g1f3", "g8f6", "f3g1", "f6g8"}) {
+            position.makeMove(MoveGenerator.findLegalMove(position, move));
+        }
+        assertEquals(Position.fromFen(Position.START_FEN).getHashKey(), position.getHashKey());
+    }
+
+    @Test
+    void sideToMoveChangesTheKey() {
+        assertNotEquals(Position.fromFen(Position.START_FEN).getHashKey(),
+                Position.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b KQkq - 0 1").getHashKey());
+    }
+}